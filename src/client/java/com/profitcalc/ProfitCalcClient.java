@@ -1,6 +1,7 @@
 package com.profitcalc;
 
 import com.profitcalc.gui.ProfitCalculatorScreen;
+import com.profitcalc.manager.RecipeManager;
 import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.fabricmc.fabric.api.client.keybinding.v1.KeyBindingHelper;
@@ -14,6 +15,9 @@ public class ProfitCalcClient implements ClientModInitializer {
 
 	@Override
 	public void onInitializeClient() {
+		// Recipes from the last session, usable before a world is joined; every mod's items are registered by now
+		RecipeManager.getInstance().loadCachedRecipes();
+
 		// Register keybinding - create category using an Identifier
 		openGuiKey = KeyBindingHelper.registerKeyBinding(new KeyBinding(
 			"key.profit-calc.open_gui",
@@ -1,6 +1,8 @@
 package com.profitcalc.gui;
 
 import com.profitcalc.api.DonutSMPApiClient;
+import com.profitcalc.calculator.BudgetIndex;
+import com.profitcalc.calculator.CraftOrBuyOptimizer;
 import com.profitcalc.calculator.ProfitCalculator;
 import com.profitcalc.config.ConfigManager;
 import com.profitcalc.manager.AuctionHouseManager;
@@ -15,6 +17,7 @@ import net.minecraft.text.Text;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 public class ProfitCalculatorScreen extends Screen {
     private final Screen parent;
@@ -22,6 +25,9 @@ public class ProfitCalculatorScreen extends Screen {
     private TextFieldWidget apiKeyField;
     private ButtonWidget refreshButton;
     private ButtonWidget calculateButton;
+    private ButtonWidget rankingButton;
+    private ProfitCalculator.Ranking ranking = ProfitCalculator.Ranking.MARGIN;
+    private boolean hasCalculated = false;
     private List<ProfitCalculation> profitableItems = new ArrayList<>();
     private int scrollOffset = 0;
     private int selectedIndex = -1;
@@ -31,6 +37,8 @@ public class ProfitCalculatorScreen extends Screen {
     private static final int ITEM_HEIGHT = 20;
     private static final int LIST_WIDTH = 250;
     private static final int DETAIL_WIDTH = 250;
+    // Only the best results are listed; this fits the budget index, so queries never re-evaluate
+    private static final int MAX_RESULTS = BudgetIndex.CAPACITY;
 
     public ProfitCalculatorScreen(Screen parent) {
         super(Text.literal("Profit Calculator"));
@@ -83,15 +91,29 @@ public class ProfitCalculatorScreen extends Screen {
         budgetField.setMaxLength(10);
         budgetField.setText("1000");
         budgetField.setPlaceholder(Text.literal("Enter budget..."));
+        // Results follow the field as it is typed, from the index built off-thread; text that doesn't
+        // parse yet (an empty field, a trailing dot) leaves the current results alone
+        budgetField.setChangedListener(text -> {
+            if (hasCalculated) {
+                parseBudget(text).ifPresent(this::queryLatest);
+            }
+        });
         this.addDrawableChild(budgetField);
 
         // Calculate button
         calculateButton = ButtonWidget.builder(
             Text.literal("Calculate Profits"),
             button -> calculateProfits()
-        ).dimensions(this.width / 2 - 100, 80, 200, 20).build();
+        ).dimensions(this.width / 2 - 100, 80, 130, 20).build();
         this.addDrawableChild(calculateButton);
 
+        // Ranking toggle
+        rankingButton = ButtonWidget.builder(
+            rankingLabel(),
+            button -> toggleRanking()
+        ).dimensions(this.width / 2 + 35, 80, 65, 20).build();
+        this.addDrawableChild(rankingButton);
+
         // Close button
         this.addDrawableChild(ButtonWidget.builder(
             Text.literal("Close"),
@@ -148,6 +170,10 @@ public class ProfitCalculatorScreen extends Screen {
                 int count = AuctionHouseManager.getInstance().getTotalItems();
                 statusMessage = String.format("Loaded %d auction entries!", count);
                 statusColor = 0x00FF00;
+            } else if (AuctionHouseManager.getInstance().getResumePage() > 0) {
+                statusMessage = String.format("Refresh incomplete, refresh again to resume from page %d",
+                    AuctionHouseManager.getInstance().getResumePage());
+                statusColor = 0xFFFF00;
             } else {
                 statusMessage = "Failed to refresh. Check logs.";
                 statusColor = 0xFF0000;
@@ -156,26 +182,59 @@ public class ProfitCalculatorScreen extends Screen {
     }
 
     private void calculateProfits() {
-        try {
-            double budget = Double.parseDouble(budgetField.getText());
-            profitableItems = ProfitCalculator.getInstance().findProfitableItems(budget);
-            scrollOffset = 0;
-            selectedIndex = -1;
-
-            if (profitableItems.isEmpty()) {
-                statusMessage = "No profitable items found. Try refreshing auction data.";
-                statusColor = 0xFFFF00;
-            } else {
-                statusMessage = String.format("Found %d profitable items!", profitableItems.size());
-                statusColor = 0x00FF00;
-            }
-        } catch (NumberFormatException e) {
+        Optional<Double> budget = parseBudget(budgetField.getText());
+        if (budget.isEmpty()) {
             profitableItems = new ArrayList<>();
             statusMessage = "Invalid budget amount!";
             statusColor = 0xFF0000;
+            return;
+        }
+        showResults(ProfitCalculator.getInstance().findTopProfitable(budget.get(), MAX_RESULTS, ranking));
+        hasCalculated = true;
+    }
+
+    // Only queries an index that is already built; until the first one is, the results stay as they are
+    private void queryLatest(double budget) {
+        ProfitCalculator.getInstance().getLatestBudgetIndex()
+            .ifPresent(index -> showResults(index.query(budget, MAX_RESULTS, ranking)));
+    }
+
+    private void showResults(List<ProfitCalculation> results) {
+        profitableItems = results;
+        scrollOffset = 0;
+        selectedIndex = -1;
+
+        if (profitableItems.isEmpty()) {
+            statusMessage = "No profitable items found. Try refreshing auction data.";
+            statusColor = 0xFFFF00;
+        } else {
+            statusMessage = String.format("Found %d profitable items!", profitableItems.size());
+            statusColor = 0x00FF00;
         }
     }
 
+    private static Optional<Double> parseBudget(String text) {
+        try {
+            return Optional.of(Double.parseDouble(text));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    private void toggleRanking() {
+        ranking = ranking == ProfitCalculator.Ranking.MARGIN
+            ? ProfitCalculator.Ranking.PROFIT
+            : ProfitCalculator.Ranking.MARGIN;
+        rankingButton.setMessage(rankingLabel());
+        if (hasCalculated) {
+            parseBudget(budgetField.getText()).ifPresent(this::queryLatest);
+        }
+    }
+
+    private Text rankingLabel() {
+        return Text.literal(ranking == ProfitCalculator.Ranking.MARGIN ? "By Margin" : "By Profit");
+    }
+
     private void updateStatus() {
         int totalItems = AuctionHouseManager.getInstance().getTotalItems();
         String apiKey = ConfigManager.getInstance().getApiKey();
@@ -253,7 +312,7 @@ public class ProfitCalculatorScreen extends Screen {
         // Draw header
         context.drawTextWithShadow(
             this.textRenderer,
-            "Profitable Items (by margin)",
+            ranking == ProfitCalculator.Ranking.MARGIN ? "Profitable Items (by margin)" : "Profitable Items (by profit)",
             listX + 5,
             listY - 12,
             0xFFFFFF
@@ -376,7 +435,8 @@ public class ProfitCalculatorScreen extends Screen {
         );
         y += lineHeight;
 
-        // Recipe ingredients
+        // Recipe ingredients; the craft-or-buy result is solved off the render thread and only read here
+        Optional<CraftOrBuyOptimizer.Solution> craftOrBuy = ProfitCalculator.getInstance().getLatestCraftOrBuy();
         for (RecipeIngredient ingredient : item.getRecipe().getIngredients()) {
             Double price = item.getMaterialPrices().get(ingredient.getItem());
             String ingredientName = ingredient.getItem().getName().getString();
@@ -399,8 +459,11 @@ public class ProfitCalculatorScreen extends Screen {
             );
             y += lineHeight;
 
-            // Price on next line if name is long
+            // Price on next line if name is long, with the crafted cost when that is cheaper
             String priceText = String.format("  @ $%.2f ea", price != null ? price : 0);
+            if (craftOrBuy.isPresent() && craftOrBuy.get().getCraftRecipe(ingredient.getItem()).isPresent()) {
+                priceText += String.format(" (craft $%.2f)", craftOrBuy.get().getUnitCost(ingredient.getItem()).orElse(0.0));
+            }
             context.drawTextWithShadow(
                 this.textRenderer,
                 priceText,
@@ -13,7 +13,7 @@ public class ClientPlayNetworkHandlerMixin {
 
     @Inject(method = "onGameJoin", at = @At("RETURN"))
     private void onGameJoin(GameJoinS2CPacket packet, CallbackInfo ci) {
-        // Load recipes when joining a world
+        // Import recipes in the background when joining a world
         ClientPlayNetworkHandler handler = (ClientPlayNetworkHandler) (Object) this;
         if (handler.getRecipeManager() != null) {
             RecipeManager.getInstance().loadRecipes(handler.getRecipeManager());
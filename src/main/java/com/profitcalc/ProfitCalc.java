@@ -1,7 +1,9 @@
 package com.profitcalc;
 
+import com.profitcalc.calculator.ProfitCalculator;
 import com.profitcalc.command.ProfitCalcCommand;
 import com.profitcalc.config.ConfigManager;
+import com.profitcalc.manager.AuctionHouseManager;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
 
@@ -23,6 +25,11 @@ public class ProfitCalc implements ModInitializer {
 		// Load configuration
 		ConfigManager.getInstance().load();
 
+		// Whenever a refresh publishes new auction data: look for craft-and-uncraft arbitrage and rebuild
+		// the budget index and craft-or-buy in the background. Cached results are not dropped; the next
+		// query carries forward every result the changed listings cannot affect.
+		AuctionHouseManager.getInstance().addSnapshotListener(ProfitCalculator.getInstance()::onSnapshotPublished);
+
 		// Register commands
 		CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) ->
 				ProfitCalcCommand.register(dispatcher));
@@ -0,0 +1,217 @@
+package com.profitcalc.api;
+
+import com.profitcalc.api.model.AuctionResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+public class AuctionPageFetcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger("ProfitCalc/API");
+
+    private final PageLoader loader;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final int concurrency;
+    private final int startPage;
+    private final Consumer<AuctionResponse.AuctionEntry> consumer;
+
+    // Pages decoded ahead of the delivery cursor; drained in order and released as soon as possible.
+    // Workers stay within concurrency pages of the cursor, so one page in backoff can't let this grow
+    private final Map<Integer, List<AuctionResponse.AuctionEntry>> pending = new ConcurrentHashMap<>();
+    private int nextToDeliver;
+    private int delivered = 0;
+    private volatile int failedPage = Integer.MAX_VALUE;
+
+    public AuctionPageFetcher(PageLoader loader, TokenBucketRateLimiter rateLimiter, int concurrency,
+                              int startPage, Consumer<AuctionResponse.AuctionEntry> consumer) {
+        this.loader = loader;
+        this.rateLimiter = rateLimiter;
+        this.concurrency = Math.max(1, concurrency);
+        this.startPage = Math.max(1, startPage);
+        this.nextToDeliver = this.startPage;
+        this.consumer = consumer;
+    }
+
+    public Result fetchAll() {
+        try {
+            int lastPage = discoverLastPage();
+            if (lastPage < 0) {
+                return result(false);
+            }
+
+            LOGGER.info("Auction house has {} pages, fetching from page {} with {} parallel requests",
+                    lastPage, startPage, concurrency);
+            fetchRange(lastPage);
+            return result(failedPage == Integer.MAX_VALUE && nextToDeliver > lastPage);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Auction fetch interrupted after page {}", nextToDeliver - 1);
+            return result(false);
+        } finally {
+            pending.clear();
+        }
+    }
+
+    private void fetchRange(int lastPage) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "ProfitCalc-PageFetcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int page = startPage; page <= lastPage; page++) {
+                if (isFetched(page)) {
+                    continue;
+                }
+                int target = page;
+                futures.add(executor.submit(() -> {
+                    // Nothing past a failed page can be delivered, so don't spend quota on it
+                    if (awaitWindow(target) && load(target) == 0) {
+                        // The listing shrank under us; the gap can never be filled
+                        stopAt(target);
+                    }
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    LOGGER.error("Error fetching auction page: {}", e.getCause().getMessage());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Exponential search for the first empty page, then binary search back to the last full one.
+    // Every probed page with entries is kept, so discovery costs only O(log pages) extra round trips.
+    // Returns -1 when a probe fails outright and the end of the listing can't be determined.
+    private int discoverLastPage() throws InterruptedException {
+        int first = load(startPage);
+        if (first <= 0) {
+            return first < 0 ? -1 : startPage - 1;
+        }
+
+        int lastKnown = startPage;
+        int step = 1;
+        int probe = startPage + step;
+        int count;
+        while ((count = load(probe)) > 0) {
+            lastKnown = probe;
+            step *= 2;
+            probe = startPage + step;
+        }
+        if (count < 0) {
+            return -1;
+        }
+
+        int firstEmpty = probe;
+        while (firstEmpty - lastKnown > 1) {
+            int mid = (lastKnown + firstEmpty) >>> 1;
+            count = load(mid);
+            if (count < 0) {
+                return -1;
+            } else if (count > 0) {
+                lastKnown = mid;
+            } else {
+                firstEmpty = mid;
+            }
+        }
+        return lastKnown;
+    }
+
+    // Blocks until the page is within the fetch-ahead window; false once a failure makes it undeliverable
+    private synchronized boolean awaitWindow(int page) throws InterruptedException {
+        while (page < failedPage && page >= nextToDeliver + concurrency) {
+            wait();
+        }
+        return page < failedPage;
+    }
+
+    private synchronized void stopAt(int page) {
+        failedPage = Math.min(failedPage, page);
+        notifyAll();
+    }
+
+    private synchronized boolean isFetched(int page) {
+        return page < nextToDeliver || pending.containsKey(page);
+    }
+
+    private int load(int page) throws InterruptedException {
+        rateLimiter.acquire();
+        List<AuctionResponse.AuctionEntry> entries = loader.load(page);
+        if (entries == null) {
+            LOGGER.warn("Page {} failed after retries, refresh will stop there", page);
+            stopAt(page);
+            return -1;
+        }
+
+        // An empty page is a probe past the end; queuing it would move the completed-page
+        // watermark past the real data and make a resumed refresh skip a page
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        LOGGER.info("Fetched {} auction entries from page {}", entries.size(), page);
+        pending.put(page, entries);
+        drain();
+        return entries.size();
+    }
+
+    private synchronized void drain() {
+        List<AuctionResponse.AuctionEntry> entries;
+        while (nextToDeliver < failedPage && (entries = pending.remove(nextToDeliver)) != null) {
+            entries.forEach(consumer);
+            delivered += entries.size();
+            nextToDeliver++;
+            notifyAll();
+        }
+    }
+
+    private synchronized Result result(boolean complete) {
+        return new Result(delivered, nextToDeliver - 1, complete);
+    }
+
+    @FunctionalInterface
+    public interface PageLoader {
+        // Returns the page's entries (empty past the last page), or null once the page can't be fetched
+        List<AuctionResponse.AuctionEntry> load(int page) throws InterruptedException;
+    }
+
+    public static class Result {
+        private final int delivered;
+        private final int lastCompletedPage;
+        private final boolean complete;
+
+        public Result(int delivered, int lastCompletedPage, boolean complete) {
+            this.delivered = delivered;
+            this.lastCompletedPage = lastCompletedPage;
+            this.complete = complete;
+        }
+
+        public int getDelivered() {
+            return delivered;
+        }
+
+        public int getLastCompletedPage() {
+            return lastCompletedPage;
+        }
+
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+}
@@ -2,85 +2,114 @@ package com.profitcalc.api;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.profitcalc.api.model.AuctionEntryAdapter;
 import com.profitcalc.api.model.AuctionResponse;
 import com.profitcalc.config.ConfigManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class DonutSMPApiClient {
     private static final Logger LOGGER = LoggerFactory.getLogger("ProfitCalc/API");
     private static final String BASE_URL = "https://api.donutsmp.net";
     private static final DonutSMPApiClient INSTANCE = new DonutSMPApiClient();
 
+    // Requests the bucket may fire back to back before settling into the steady refill rate
+    private static final int RATE_LIMIT_BURST = 10;
+    private static final long RETRY_BASE_DELAY_MS = 500;
+    private static final long RETRY_MAX_DELAY_MS = 30_000;
+
     private final HttpClient httpClient;
     private final Gson gson;
+    private final TypeAdapter<AuctionResponse.AuctionEntry> entryAdapter;
+    private final TokenBucketRateLimiter rateLimiter;
 
     private DonutSMPApiClient() {
         this.httpClient = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(10))
                 .build();
-        this.gson = new GsonBuilder().create();
+        this.gson = new GsonBuilder()
+                .registerTypeAdapter(AuctionResponse.AuctionEntry.class, new AuctionEntryAdapter())
+                .create();
+        this.entryAdapter = gson.getAdapter(AuctionResponse.AuctionEntry.class);
+        this.rateLimiter = new TokenBucketRateLimiter(refillRate(), RATE_LIMIT_BURST);
+    }
+
+    // Refill at quota minus burst so any sliding minute stays within the documented budget.
+    // Read on every refresh so a config change applies without a restart.
+    private static int refillRate() {
+        return Math.max(1, ConfigManager.getInstance().getRequestsPerMinute() - RATE_LIMIT_BURST);
     }
 
     public static DonutSMPApiClient getInstance() {
         return INSTANCE;
     }
 
-    public CompletableFuture<List<AuctionResponse.AuctionEntry>> fetchAllAuctions() {
+    public CompletableFuture<AuctionPageFetcher.Result> fetchAllAuctions(int startPage,
+                                                                    Consumer<AuctionResponse.AuctionEntry> consumer) {
         String apiKey = ConfigManager.getInstance().getApiKey();
         if (apiKey == null || apiKey.isEmpty()) {
             LOGGER.warn("No API key set. Use /profitcalc apikey <key> to set it.");
-            return CompletableFuture.completedFuture(new ArrayList<>());
+            return CompletableFuture.completedFuture(new AuctionPageFetcher.Result(0, startPage - 1, false));
         }
 
+        ConfigManager config = ConfigManager.getInstance();
+        rateLimiter.setPermitsPerMinute(refillRate());
+        RetryPolicy retryPolicy = new RetryPolicy(config.getMaxRetriesPerPage(), RETRY_BASE_DELAY_MS, RETRY_MAX_DELAY_MS);
+        AuctionPageFetcher fetcher = new AuctionPageFetcher(
+                page -> fetchAuctionPage(page, apiKey, retryPolicy),
+                rateLimiter, config.getMaxConcurrentRequests(), startPage, consumer);
+
         return CompletableFuture.supplyAsync(() -> {
-            List<AuctionResponse.AuctionEntry> allEntries = new ArrayList<>();
-            int page = 1;
-            boolean hasMore = true;
-
-            while (hasMore) {
-                try {
-                    AuctionResponse response = fetchAuctionPage(page, apiKey);
-                    if (response != null && response.getResult() != null && !response.getResult().isEmpty()) {
-                        allEntries.addAll(response.getResult());
-                        LOGGER.info("Fetched {} auction entries from page {}", response.getResult().size(), page);
-                        page++;
-
-                        // DonutSMP might have pagination limits, so we'll fetch multiple pages
-                        // Stop if we get less than 100 items (likely the last page)
-                        if (response.getResult().size() < 100) {
-                            hasMore = false;
-                        }
-                    } else {
-                        hasMore = false;
-                    }
+            AuctionPageFetcher.Result result = fetcher.fetchAll();
+            LOGGER.info("Fetched total of {} auction entries (pages {}-{}, {})", result.getDelivered(),
+                    startPage, result.getLastCompletedPage(), result.isComplete() ? "complete" : "incomplete");
+            return result;
+        });
+    }
 
-                    // Rate limiting: 250 reqs/min, so wait a bit between requests
-                    if (hasMore) {
-                        Thread.sleep(300); // 300ms between requests = ~200 reqs/min
-                    }
+    private List<AuctionResponse.AuctionEntry> fetchAuctionPage(int page, String apiKey, RetryPolicy retryPolicy)
+            throws InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return attemptAuctionPage(page, apiKey);
+            } catch (RetryableException e) {
+                if (!retryPolicy.canRetry(attempt)) {
+                    LOGGER.error("Giving up on auction page {} after {} attempts: {}", page, attempt + 1, e.getMessage());
+                    return null;
+                }
 
-                } catch (Exception e) {
-                    LOGGER.error("Error fetching auction page {}: {}", page, e.getMessage());
-                    hasMore = false;
+                long delay = retryPolicy.delayMillis(attempt, e.getRetryAfterMillis());
+                if (e.getRetryAfterMillis() > 0) {
+                    // The quota is shared, so every in-flight worker backs off, not just this one
+                    rateLimiter.pauseFor(delay);
                 }
+                LOGGER.warn("Auction page {} failed ({}), retrying in {} ms", page, e.getMessage(), delay);
+                Thread.sleep(delay);
+                rateLimiter.acquire();
             }
-
-            LOGGER.info("Fetched total of {} auction entries", allEntries.size());
-            return allEntries;
-        });
+        }
     }
 
-    private AuctionResponse fetchAuctionPage(int page, String apiKey) {
+    private List<AuctionResponse.AuctionEntry> attemptAuctionPage(int page, String apiKey)
+            throws InterruptedException, RetryableException {
         try {
             HttpRequest request = HttpRequest.newBuilder()
                     .uri(URI.create(BASE_URL + "/v1/auction/list/" + page))
@@ -90,30 +119,63 @@ public class DonutSMPApiClient {
                     .GET()
                     .build();
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() == 200) {
-                return gson.fromJson(response.body(), AuctionResponse.class);
-            } else if (response.statusCode() == 401) {
-                LOGGER.error("Unauthorized - Invalid API key. Generate a new key with /api in-game.");
-                return null;
-            } else if (response.statusCode() == 429) {
-                LOGGER.warn("Rate limit exceeded. Waiting before retry...");
-                return null;
-            } else {
-                LOGGER.error("API error: {} - {}", response.statusCode(), response.body());
-                return null;
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+
+            try (InputStream body = response.body()) {
+                int status = response.statusCode();
+                if (status == 200) {
+                    List<AuctionResponse.AuctionEntry> entries = new ArrayList<>();
+                    readEntries(body, entries::add);
+                    return entries;
+                } else if (status == 401) {
+                    LOGGER.error("Unauthorized - Invalid API key. Generate a new key with /api in-game.");
+                    return null;
+                } else if (status == 429) {
+                    throw new RetryableException("rate limited",
+                            RetryPolicy.parseRetryAfter(response.headers().firstValue("Retry-After")));
+                } else if (status >= 500) {
+                    throw new RetryableException("HTTP " + status,
+                            RetryPolicy.parseRetryAfter(response.headers().firstValue("Retry-After")));
+                } else {
+                    LOGGER.error("API error: {} - {}", status,
+                            new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                    return null;
+                }
             }
 
-        } catch (Exception e) {
-            LOGGER.error("Error fetching auction page: {}", e.getMessage());
-            return null;
+        } catch (IOException | JsonParseException | IllegalStateException e) {
+            // Timeouts, dropped connections and truncated bodies are all worth another attempt
+            throw new RetryableException(e.getMessage(), 0);
+        }
+    }
+
+    // Decodes the "result" array entry by entry straight off the socket, so a page is never
+    // materialized as a String or as a whole AuctionResponse. The caller counts what reached the sink.
+    private void readEntries(InputStream body, Consumer<AuctionResponse.AuctionEntry> sink) throws IOException {
+        try (JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("result".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        AuctionResponse.AuctionEntry entry = entryAdapter.read(reader);
+                        if (entry != null) {
+                            sink.accept(entry);
+                        }
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
         }
     }
 
     public CompletableFuture<Boolean> testApiKey(String apiKey) {
         return CompletableFuture.supplyAsync(() -> {
             try {
+                rateLimiter.acquire();
                 HttpRequest request = HttpRequest.newBuilder()
                         .uri(URI.create(BASE_URL + "/v1/auction/list/1"))
                         .header("Authorization", "Bearer " + apiKey)
@@ -122,7 +184,7 @@ public class DonutSMPApiClient {
                         .GET()
                         .build();
 
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
                 return response.statusCode() == 200;
 
             } catch (Exception e) {
@@ -131,4 +193,17 @@ public class DonutSMPApiClient {
             }
         });
     }
+
+    private static class RetryableException extends Exception {
+        private final long retryAfterMillis;
+
+        RetryableException(String message, long retryAfterMillis) {
+            super(message);
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        long getRetryAfterMillis() {
+            return retryAfterMillis;
+        }
+    }
 }
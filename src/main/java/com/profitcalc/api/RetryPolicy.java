@@ -0,0 +1,52 @@
+package com.profitcalc.api;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class RetryPolicy {
+    private final int maxRetries;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    public RetryPolicy(int maxRetries, long baseDelayMillis, long maxDelayMillis) {
+        this.maxRetries = Math.max(0, maxRetries);
+        this.baseDelayMillis = Math.max(1, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+    }
+
+    public boolean canRetry(int attempt) {
+        return attempt < maxRetries;
+    }
+
+    // Exponential backoff with equal jitter; a server-provided Retry-After always wins as the lower bound
+    public long delayMillis(int attempt, long retryAfterMillis) {
+        if (retryAfterMillis > 0) {
+            return retryAfterMillis + ThreadLocalRandom.current().nextLong(baseDelayMillis + 1);
+        }
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt, 20));
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+
+    // Retry-After is either delta-seconds or an HTTP-date
+    public static long parseRetryAfter(Optional<String> header) {
+        if (header.isEmpty()) {
+            return 0;
+        }
+
+        String value = header.get().trim();
+        try {
+            return Duration.ofSeconds(Long.parseLong(value)).toMillis();
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, Duration.between(ZonedDateTime.now(at.getZone()), at).toMillis());
+            } catch (DateTimeParseException e2) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.profitcalc.api;
+
+import java.util.concurrent.TimeUnit;
+
+public class TokenBucketRateLimiter {
+    private final double capacity;
+    private double refillPerNano;
+    private double tokens;
+    private long lastRefill;
+    private long pausedUntil;
+
+    public TokenBucketRateLimiter(int permitsPerMinute, int burst) {
+        this.capacity = Math.max(1, burst);
+        this.refillPerNano = perNano(permitsPerMinute);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+        this.pausedUntil = lastRefill;
+    }
+
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                if (now - pausedUntil < 0) {
+                    waitNanos = pausedUntil - now;
+                } else {
+                    refill(now);
+                    if (tokens >= 1) {
+                        tokens -= 1;
+                        return;
+                    }
+                    waitNanos = (long) Math.ceil((1 - tokens) / refillPerNano);
+                }
+            }
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    // Tokens already in the bucket and any Retry-After pause carry over; only the refill rate changes
+    public synchronized void setPermitsPerMinute(int permitsPerMinute) {
+        refill(System.nanoTime());
+        refillPerNano = perNano(permitsPerMinute);
+    }
+
+    // Holds every caller off until the server's Retry-After has passed, then restarts from an empty bucket
+    public synchronized void pauseFor(long millis) {
+        long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        if (until - pausedUntil > 0) {
+            pausedUntil = until;
+            tokens = 0;
+            lastRefill = until;
+        }
+    }
+
+    private static double perNano(int permitsPerMinute) {
+        return Math.max(1, permitsPerMinute) / (double) TimeUnit.MINUTES.toNanos(1);
+    }
+
+    private void refill(long now) {
+        if (now - lastRefill > 0) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+            lastRefill = now;
+        }
+    }
+}
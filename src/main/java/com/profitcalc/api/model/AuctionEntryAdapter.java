@@ -0,0 +1,115 @@
+package com.profitcalc.api.model;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+// Decodes only what the pricing path reads (item id, count, price, seller name, time left).
+// Lore, display names, enchantments and trims are skipped on the token stream without being built.
+public class AuctionEntryAdapter extends TypeAdapter<AuctionResponse.AuctionEntry> {
+
+    @Override
+    public AuctionResponse.AuctionEntry read(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+
+        AuctionResponse.ItemData item = null;
+        double price = 0;
+        AuctionResponse.SellerData seller = null;
+        long timeLeft = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "item" -> item = readItem(reader);
+                case "price" -> price = reader.nextDouble();
+                case "seller" -> seller = readSeller(reader);
+                case "time_left" -> timeLeft = reader.nextLong();
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new AuctionResponse.AuctionEntry(item, price, seller, timeLeft);
+    }
+
+    private AuctionResponse.ItemData readItem(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        String id = null;
+        int count = 1;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id" -> id = nextStringOrNull(reader);
+                case "count" -> count = reader.nextInt();
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new AuctionResponse.ItemData(id, count);
+    }
+
+    private AuctionResponse.SellerData readSeller(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        String name = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("name".equals(reader.nextName())) {
+                name = nextStringOrNull(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new AuctionResponse.SellerData(name);
+    }
+
+    private String nextStringOrNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    @Override
+    public void write(JsonWriter writer, AuctionResponse.AuctionEntry entry) throws IOException {
+        if (entry == null) {
+            writer.nullValue();
+            return;
+        }
+
+        writer.beginObject();
+        if (entry.getItem() != null) {
+            writer.name("item").beginObject()
+                    .name("id").value(entry.getItem().getId())
+                    .name("count").value(entry.getItem().getCount())
+                    .endObject();
+        }
+        writer.name("price").value(entry.getPrice());
+        if (entry.getSeller() != null) {
+            writer.name("seller").beginObject()
+                    .name("name").value(entry.getSeller().getName())
+                    .endObject();
+        }
+        writer.name("time_left").value(entry.getTimeLeft());
+        writer.endObject();
+    }
+}
@@ -31,6 +31,15 @@ public class AuctionResponse {
         @SerializedName("time_left")
         private long timeLeft;
 
+        AuctionEntry() {}
+
+        AuctionEntry(ItemData item, double price, SellerData seller, long timeLeft) {
+            this.item = item;
+            this.price = price;
+            this.seller = seller;
+            this.timeLeft = timeLeft;
+        }
+
         public ItemData getItem() {
             return item;
         }
@@ -64,6 +73,13 @@ public class AuctionResponse {
         @SerializedName("enchants")
         private EnchantData enchants;
 
+        ItemData() {}
+
+        ItemData(String id, int count) {
+            this.id = id;
+            this.count = count;
+        }
+
         public String getId() {
             return id;
         }
@@ -133,6 +149,12 @@ public class AuctionResponse {
         @SerializedName("uuid")
         private String uuid;
 
+        SellerData() {}
+
+        SellerData(String name) {
+            this.name = name;
+        }
+
         public String getName() {
             return name;
         }
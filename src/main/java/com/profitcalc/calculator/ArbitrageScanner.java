@@ -0,0 +1,310 @@
+package com.profitcalc.calculator;
+
+import com.profitcalc.manager.RecipeManager;
+import com.profitcalc.model.AuctionSnapshot;
+import com.profitcalc.model.CraftingRecipe;
+import com.profitcalc.model.ItemListings;
+import com.profitcalc.model.RecipeIndex;
+import com.profitcalc.model.RecipeIngredient;
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+// Finds loops that turn money into more money through single-ingredient conversions (ingot <-> block,
+// ingot <-> nugget, smelting chains) and floor-price trades. Every edge weighs -log(rate), so a loop
+// whose rates multiply to more than 1 is a negative cycle, found with Bellman-Ford over flat edge
+// arrays. Conversion edges are compiled once per recipe version; market edges once per snapshot.
+public class ArbitrageScanner {
+    private static final Logger LOGGER = LoggerFactory.getLogger("ProfitCalc/Arbitrage");
+    // Ignores loops that only close because of rounding
+    private static final double EPSILON = 1e-9;
+    private static final int MAX_LOOPS = 20;
+
+    // Node 0 is cash; every other node is an item that takes part in a conversion
+    private static final int CASH = 0;
+
+    public enum StepKind {
+        BUY,
+        CRAFT,
+        SELL
+    }
+
+    private Conversions conversions;
+    private volatile List<Loop> lastLoops = List.of();
+
+    public List<Loop> scan(AuctionSnapshot market) {
+        return scan(market, RecipeManager.getInstance().getRecipeIndex());
+    }
+
+    synchronized List<Loop> scan(AuctionSnapshot market, RecipeIndex recipes) {
+        long start = System.nanoTime();
+        if (conversions == null || conversions.recipeVersion != recipes.getVersion()) {
+            conversions = Conversions.compile(recipes);
+        }
+        Conversions graph = conversions;
+        int nodes = graph.nodeItems.length;
+
+        // Conversion edges first, then a buy and a sell edge for every listed node
+        int maxEdges = graph.from.length + 2 * nodes;
+        int[] from = Arrays.copyOf(graph.from, maxEdges);
+        int[] to = Arrays.copyOf(graph.to, maxEdges);
+        double[] weight = Arrays.copyOf(graph.weight, maxEdges);
+        StepKind[] kind = new StepKind[maxEdges];
+        Arrays.fill(kind, 0, graph.from.length, StepKind.CRAFT);
+        int edges = graph.from.length;
+        for (int node = 1; node < nodes; node++) {
+            ItemListings listings = market.getItemListings(graph.nodeItems[node]);
+            if (listings.isEmpty()) {
+                continue;
+            }
+            double price = listings.getMin();
+            from[edges] = CASH;
+            to[edges] = node;
+            weight[edges] = Math.log(price);
+            kind[edges++] = StepKind.BUY;
+            from[edges] = node;
+            to[edges] = CASH;
+            weight[edges] = -Math.log(price);
+            kind[edges++] = StepKind.SELL;
+        }
+
+        // Every node starts at distance 0, as if from a virtual source, so cycles that never touch cash count too
+        double[] dist = new double[nodes];
+        int[] predEdge = new int[nodes];
+        Arrays.fill(predEdge, -1);
+        boolean relaxed = true;
+        for (int round = 0; round < nodes - 1 && relaxed; round++) {
+            relaxed = false;
+            for (int e = 0; e < edges; e++) {
+                if (dist[from[e]] + weight[e] < dist[to[e]] - EPSILON) {
+                    dist[to[e]] = dist[from[e]] + weight[e];
+                    predEdge[to[e]] = e;
+                    relaxed = true;
+                }
+            }
+        }
+
+        List<Loop> loops = new ArrayList<>();
+        if (relaxed) {
+            Set<String> seen = new HashSet<>();
+            for (int e = 0; e < edges && loops.size() < MAX_LOOPS; e++) {
+                if (dist[from[e]] + weight[e] >= dist[to[e]] - EPSILON) {
+                    continue;
+                }
+                // Relaxed once more, as a final Bellman-Ford round would; the target may never have had a
+                // predecessor yet. Walking back nodes times from it then always lands inside a cycle.
+                dist[to[e]] = dist[from[e]] + weight[e];
+                predEdge[to[e]] = e;
+                int node = to[e];
+                for (int i = 0; i < nodes && predEdge[node] >= 0; i++) {
+                    node = from[predEdge[node]];
+                }
+                List<Integer> cycle = traceCycle(node, predEdge, from);
+                if (cycle.isEmpty()) {
+                    continue;
+                }
+                List<Integer> key = new ArrayList<>();
+                for (int edge : cycle) {
+                    key.add(from[edge]);
+                }
+                Collections.sort(key);
+                if (seen.add(key.toString())) {
+                    loops.add(toLoop(cycle, graph, from, to, weight, kind));
+                }
+            }
+            loops.sort((a, b) -> Double.compare(b.getExpectedReturn(), a.getExpectedReturn()));
+        }
+
+        List<Loop> previous = lastLoops;
+        lastLoops = Collections.unmodifiableList(loops);
+        LOGGER.debug("Scanned {} nodes and {} edges for arbitrage in {} ms, found {} loops",
+                nodes, edges, (System.nanoTime() - start) / 1_000_000, loops.size());
+        for (Loop loop : loops) {
+            LOGGER.debug("Arbitrage loop, {}% return: {}", String.format("%.2f", loop.getExpectedReturn() * 100), loop.describe());
+        }
+        // Scans run on every chat listing and expiry tick; only a different set of loops is news
+        if (!describeAll(loops).equals(describeAll(previous))) {
+            LOGGER.info("Found {} arbitrage loops{}", loops.size(), loops.isEmpty() ? ""
+                    : String.format(", best %.2f%% return: %s", loops.get(0).getExpectedReturn() * 100, loops.get(0).describe()));
+        }
+        return lastLoops;
+    }
+
+    private static Set<String> describeAll(List<Loop> loops) {
+        Set<String> described = new HashSet<>();
+        for (Loop loop : loops) {
+            described.add(loop.describe());
+        }
+        return described;
+    }
+
+    // Loops found by the most recent scan, best return first
+    public List<Loop> getLastLoops() {
+        return lastLoops;
+    }
+
+    // Edges of the cycle through start, in travel order; empty if start is not on a cycle
+    private static List<Integer> traceCycle(int start, int[] predEdge, int[] from) {
+        List<Integer> reversed = new ArrayList<>();
+        int node = start;
+        do {
+            int edge = predEdge[node];
+            if (edge < 0 || reversed.size() > predEdge.length) {
+                return List.of();
+            }
+            reversed.add(edge);
+            node = from[edge];
+        } while (node != start);
+        Collections.reverse(reversed);
+        // Read loops through cash from the purchase onwards
+        for (int i = 0; i < reversed.size(); i++) {
+            if (from[reversed.get(i)] == CASH) {
+                Collections.rotate(reversed, -i);
+                break;
+            }
+        }
+        return reversed;
+    }
+
+    private static Loop toLoop(List<Integer> cycle, Conversions graph, int[] from, int[] to,
+                               double[] weight, StepKind[] kind) {
+        double total = 0;
+        List<Step> steps = new ArrayList<>();
+        for (int edge : cycle) {
+            total += weight[edge];
+            Item item = Registries.ITEM.get(graph.nodeItems[kind[edge] == StepKind.SELL ? from[edge] : to[edge]]);
+            Item input = kind[edge] == StepKind.CRAFT ? Registries.ITEM.get(graph.nodeItems[from[edge]]) : null;
+            steps.add(new Step(kind[edge], input, item));
+        }
+        return new Loop(steps, Math.exp(-total) - 1);
+    }
+
+    public static class Loop {
+        private final List<Step> steps;
+        private final double expectedReturn;
+
+        private Loop(List<Step> steps, double expectedReturn) {
+            this.steps = Collections.unmodifiableList(steps);
+            this.expectedReturn = expectedReturn;
+        }
+
+        public List<Step> getSteps() {
+            return steps;
+        }
+
+        // Fractional gain per trip around the loop at floor prices, e.g. 0.05 for 5%
+        public double getExpectedReturn() {
+            return expectedReturn;
+        }
+
+        public String describe() {
+            StringBuilder sb = new StringBuilder();
+            for (Step step : steps) {
+                if (sb.length() > 0) sb.append(" -> ");
+                switch (step.kind) {
+                    case BUY -> sb.append("buy ").append(step.item.getName().getString());
+                    case SELL -> sb.append("sell ").append(step.item.getName().getString());
+                    case CRAFT -> sb.append("craft ").append(step.item.getName().getString());
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    public static class Step {
+        private final StepKind kind;
+        private final Item input;
+        private final Item item;
+
+        private Step(StepKind kind, Item input, Item item) {
+            this.kind = kind;
+            this.input = input;
+            this.item = item;
+        }
+
+        public StepKind getKind() {
+            return kind;
+        }
+
+        // Item consumed by a CRAFT step; null for trades
+        public Item getInput() {
+            return input;
+        }
+
+        // Item bought, sold or produced
+        public Item getItem() {
+            return item;
+        }
+    }
+
+    // Single-ingredient recipes as flat edge arrays over a compact node numbering
+    private static class Conversions {
+        private final long recipeVersion;
+        private final int[] nodeItems;
+        private final int[] from;
+        private final int[] to;
+        private final double[] weight;
+
+        private Conversions(long recipeVersion, int[] nodeItems, int[] from, int[] to, double[] weight) {
+            this.recipeVersion = recipeVersion;
+            this.nodeItems = nodeItems;
+            this.from = from;
+            this.to = to;
+            this.weight = weight;
+        }
+
+        static Conversions compile(RecipeIndex index) {
+            Map<Integer, Integer> nodeByRawId = new HashMap<>();
+            List<Integer> nodeItems = new ArrayList<>();
+            nodeItems.add(-1); // Cash
+
+            List<int[]> pairs = new ArrayList<>();
+            List<Double> weights = new ArrayList<>();
+            for (List<CraftingRecipe> recipes : index.getRecipesByOutput().values()) {
+                for (CraftingRecipe recipe : recipes) {
+                    List<RecipeIngredient> ingredients = recipe.getIngredients();
+                    if (ingredients.size() != 1) {
+                        continue; // Only one-to-one conversions form a rate graph
+                    }
+                    RecipeIngredient ingredient = ingredients.get(0);
+                    int output = Registries.ITEM.getRawId(recipe.getOutput());
+                    if (output < 0 || ingredient.getQuantity() <= 0) {
+                        continue;
+                    }
+                    // Any accepted item converts at the same rate
+                    for (Item alternative : ingredient.getAlternatives()) {
+                        int input = Registries.ITEM.getRawId(alternative);
+                        if (input < 0 || input == output) {
+                            continue;
+                        }
+
+                        int fromNode = nodeByRawId.computeIfAbsent(input, k -> {
+                            nodeItems.add(k);
+                            return nodeItems.size() - 1;
+                        });
+                        int toNode = nodeByRawId.computeIfAbsent(output, k -> {
+                            nodeItems.add(k);
+                            return nodeItems.size() - 1;
+                        });
+                        pairs.add(new int[]{fromNode, toNode});
+                        weights.add(-Math.log((double) recipe.getOutputQuantity() / ingredient.getQuantity()));
+                    }
+                }
+            }
+
+            int[] from = new int[pairs.size()];
+            int[] to = new int[pairs.size()];
+            double[] weight = new double[pairs.size()];
+            for (int i = 0; i < pairs.size(); i++) {
+                from[i] = pairs.get(i)[0];
+                to[i] = pairs.get(i)[1];
+                weight[i] = weights.get(i);
+            }
+            return new Conversions(index.getVersion(), nodeItems.stream().mapToInt(Integer::intValue).toArray(),
+                    from, to, weight);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.profitcalc.calculator;
+
+import com.profitcalc.model.ProfitCalculation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Profitable results for one version of the incremental results, ordered by materials cost. Every
+// CHECKPOINT entries it keeps the best CAPACITY results so far under each ranking. A budget query
+// binary-searches the cost cut-off, takes the checkpoint at or below it and merges in the few entries
+// past the checkpoint, so changing the budget or the ranking never re-evaluates a recipe.
+public class BudgetIndex {
+    public static final int CAPACITY = 100;
+    private static final int CHECKPOINT = 32;
+
+    private final long resultsVersion;
+    private final ProfitCalculation[] byCost;
+    private final double[] costs;
+    // checkpoints[ranking][c] holds the best results among byCost[0 .. c * CHECKPOINT), best first
+    private final ProfitCalculation[][][] checkpoints;
+
+    BudgetIndex(long resultsVersion, List<ProfitCalculation> results) {
+        this.resultsVersion = resultsVersion;
+
+        List<ProfitCalculation> profitable = new ArrayList<>();
+        for (ProfitCalculation calculation : results) {
+            if (calculation.isProfitable()) {
+                profitable.add(calculation);
+            }
+        }
+        profitable.sort(Comparator.comparingDouble(ProfitCalculation::getMaterialsCost));
+
+        this.byCost = profitable.toArray(new ProfitCalculation[0]);
+        this.costs = new double[byCost.length];
+        for (int i = 0; i < byCost.length; i++) {
+            costs[i] = byCost[i].getMaterialsCost();
+        }
+
+        ProfitCalculator.Ranking[] rankings = ProfitCalculator.Ranking.values();
+        this.checkpoints = new ProfitCalculation[rankings.length][byCost.length / CHECKPOINT + 1][];
+        for (ProfitCalculator.Ranking ranking : rankings) {
+            Comparator<ProfitCalculation> order = ranking.order();
+            List<ProfitCalculation> best = new ArrayList<>();
+            for (int i = 0; i <= byCost.length; i++) {
+                if (i % CHECKPOINT == 0) {
+                    checkpoints[ranking.ordinal()][i / CHECKPOINT] = best.toArray(new ProfitCalculation[0]);
+                }
+                if (i < byCost.length) {
+                    insertBounded(best, byCost[i], order, CAPACITY);
+                }
+            }
+        }
+    }
+
+    public boolean isFor(long resultsVersion) {
+        return this.resultsVersion == resultsVersion;
+    }
+
+    public int size() {
+        return byCost.length;
+    }
+
+    // The best k (at most CAPACITY) profitable results whose materials cost fits the budget
+    public List<ProfitCalculation> query(double maxBudget, int k, ProfitCalculator.Ranking ranking) {
+        int limit = Math.min(k, CAPACITY);
+        int end = upperBound(maxBudget);
+        int checkpoint = end / CHECKPOINT;
+        Comparator<ProfitCalculation> order = ranking.order();
+
+        List<ProfitCalculation> best = new ArrayList<>(limit + CHECKPOINT);
+        for (ProfitCalculation calculation : checkpoints[ranking.ordinal()][checkpoint]) {
+            if (best.size() == limit) {
+                break;
+            }
+            best.add(calculation);
+        }
+        for (int i = checkpoint * CHECKPOINT; i < end; i++) {
+            insertBounded(best, byCost[i], order, limit);
+        }
+        return best;
+    }
+
+    // Entries with materials cost <= budget are byCost[0 .. result)
+    private int upperBound(double budget) {
+        int lo = 0;
+        int hi = costs.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (costs[mid] <= budget) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Keeps best sorted and no longer than limit
+    private static void insertBounded(List<ProfitCalculation> best, ProfitCalculation candidate,
+                                      Comparator<ProfitCalculation> order, int limit) {
+        if (limit <= 0 || (best.size() == limit && order.compare(candidate, best.get(limit - 1)) >= 0)) {
+            return;
+        }
+        int at = best.size();
+        while (at > 0 && order.compare(candidate, best.get(at - 1)) < 0) {
+            at--;
+        }
+        best.add(at, candidate);
+        if (best.size() > limit) {
+            best.remove(limit);
+        }
+    }
+}
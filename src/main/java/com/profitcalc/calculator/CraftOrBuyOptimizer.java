@@ -0,0 +1,202 @@
+package com.profitcalc.calculator;
+
+import com.profitcalc.manager.RecipeManager;
+import com.profitcalc.model.AuctionSnapshot;
+import com.profitcalc.model.CraftingRecipe;
+import com.profitcalc.model.ItemListings;
+import com.profitcalc.model.RecipeIndex;
+import com.profitcalc.model.RecipeIngredient;
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+// Cheapest way to obtain one unit of every item: buy it at the floor price, or craft it from
+// ingredients that are themselves bought or crafted (logs -> planks -> sticks).
+//
+// Solved for all items in one depth-first pass over the recipe graph. Each item is finished once
+// and memoized, so every recipe is costed exactly once. An ingredient that is still being solved
+// further up the walk is a cycle (ingot <-> block) and is priced at its market price at that point
+// instead of recursing. Results are memoized per snapshot and recipe version.
+//
+// A newer snapshot of the same recipes starts from the previous walk and re-solves only the items
+// whose listings changed and everything that transitively crafts from them; the rest keep their
+// cost. Where a re-solved item sits on a cycle, the cut can land on a different item than a full
+// walk would pick, so costs around cycles may differ slightly from a from-scratch solve.
+public class CraftOrBuyOptimizer {
+    private static final Logger LOGGER = LoggerFactory.getLogger("ProfitCalc/CraftOrBuy");
+
+    private static final byte IN_PROGRESS = 1;
+    private static final byte DONE = 2;
+
+    private volatile Solution cached;
+    private Walk lastWalk;
+
+    // One solve at a time; a caller that waited finds the result already cached
+    public synchronized Solution solve(AuctionSnapshot market) {
+        RecipeIndex recipes = RecipeManager.getInstance().getRecipeIndex();
+        long recipeVersion = recipes.getVersion();
+        Solution current = cached;
+        if (current != null && current.marketVersion == market.getVersion() && current.recipeVersion == recipeVersion) {
+            return current;
+        }
+
+        long start = System.nanoTime();
+        Walk previous = lastWalk;
+        Walk walk;
+        int stale;
+        if (previous != null && previous.recipes == recipes && previous.market.getVersion() < market.getVersion()) {
+            walk = new Walk(market, previous);
+            stale = walk.invalidate(market.changedSince(previous.market));
+        } else {
+            walk = new Walk(market, recipes);
+            stale = walk.recipesByOutput.size();
+        }
+        for (Item output : walk.recipesByOutput.keySet()) {
+            walk.solve(Registries.ITEM.getRawId(output));
+        }
+        Solution solved = new Solution(market.getVersion(), recipeVersion, walk.unitCost, walk.craftedWith);
+        lastWalk = walk;
+        cached = solved;
+
+        LOGGER.debug("Solved craft-or-buy for {} of {} outputs ({} cycles cut) in {} ms",
+                stale, walk.recipesByOutput.size(), walk.cyclesCut, (System.nanoTime() - start) / 1_000_000);
+        return solved;
+    }
+
+    // The most recent solution, whatever market it was for; null before the first solve
+    public Solution getLatest() {
+        return cached;
+    }
+
+    private static class Walk {
+        private final AuctionSnapshot market;
+        private final RecipeIndex recipes;
+        private final Map<Item, List<CraftingRecipe>> recipesByOutput;
+        private final double[] unitCost;
+        private final CraftingRecipe[] craftedWith;
+        private final byte[] state;
+        private int cyclesCut = 0;
+
+        Walk(AuctionSnapshot market, RecipeIndex recipes) {
+            this.market = market;
+            this.recipes = recipes;
+            this.recipesByOutput = recipes.getRecipesByOutput();
+            this.unitCost = new double[Registries.ITEM.size()];
+            this.craftedWith = new CraftingRecipe[unitCost.length];
+            this.state = new byte[unitCost.length];
+        }
+
+        // Copies the previous walk, whose arrays stay with its published solution
+        Walk(AuctionSnapshot market, Walk previous) {
+            this.market = market;
+            this.recipes = previous.recipes;
+            this.recipesByOutput = previous.recipesByOutput;
+            this.unitCost = previous.unitCost.clone();
+            this.craftedWith = previous.craftedWith.clone();
+            this.state = previous.state.clone();
+        }
+
+        // Forgets the changed items and every item crafted from them, directly or further up;
+        // returns how many were forgotten
+        private int invalidate(Set<Item> changed) {
+            Deque<Item> pending = new ArrayDeque<>(changed);
+            Set<Item> stale = new HashSet<>(changed);
+            while (!pending.isEmpty()) {
+                Item item = pending.poll();
+                int rawId = Registries.ITEM.getRawId(item);
+                state[rawId] = 0;
+                unitCost[rawId] = 0;
+                craftedWith[rawId] = null;
+                for (CraftingRecipe recipe : recipes.getRecipesUsing(item)) {
+                    if (stale.add(recipe.getOutput())) {
+                        pending.add(recipe.getOutput());
+                    }
+                }
+            }
+            return stale.size();
+        }
+
+        private double marketPrice(int rawId) {
+            ItemListings listings = market.getItemListings(rawId);
+            return listings.isEmpty() ? Double.POSITIVE_INFINITY : listings.getMin();
+        }
+
+        private double solve(int rawId) {
+            if (state[rawId] == DONE) {
+                return unitCost[rawId];
+            }
+            if (state[rawId] == IN_PROGRESS) {
+                cyclesCut++;
+                return marketPrice(rawId);
+            }
+
+            state[rawId] = IN_PROGRESS;
+            double best = marketPrice(rawId);
+            for (CraftingRecipe recipe : recipesByOutput.getOrDefault(Registries.ITEM.get(rawId), List.of())) {
+                List<RecipeIngredient> ingredients = recipe.getIngredients();
+                if (ingredients.isEmpty()) {
+                    continue;
+                }
+
+                double total = 0;
+                for (RecipeIngredient ingredient : ingredients) {
+                    // An any-of slot takes whichever accepted item is cheapest to buy or craft
+                    double unit = Double.POSITIVE_INFINITY;
+                    for (Item alternative : ingredient.getAlternatives()) {
+                        unit = Math.min(unit, solve(Registries.ITEM.getRawId(alternative)));
+                    }
+                    total += ingredient.getQuantity() * unit;
+                    if (Double.isInfinite(total)) {
+                        break; // Neither buyable nor craftable
+                    }
+                }
+
+                double perUnit = total / Math.max(1, recipe.getOutputQuantity());
+                if (perUnit < best) {
+                    best = perUnit;
+                    craftedWith[rawId] = recipe;
+                }
+            }
+
+            unitCost[rawId] = best;
+            state[rawId] = DONE;
+            return best;
+        }
+    }
+
+    public static class Solution {
+        private final long marketVersion;
+        private final long recipeVersion;
+        private final double[] unitCost;
+        private final CraftingRecipe[] craftedWith;
+
+        private Solution(long marketVersion, long recipeVersion, double[] unitCost, CraftingRecipe[] craftedWith) {
+            this.marketVersion = marketVersion;
+            this.recipeVersion = recipeVersion;
+            this.unitCost = unitCost;
+            this.craftedWith = craftedWith;
+        }
+
+        public boolean isFor(long marketVersion, long recipeVersion) {
+            return this.marketVersion == marketVersion && this.recipeVersion == recipeVersion;
+        }
+
+        // Cheapest cost of one unit, bought or crafted; empty when it can be neither
+        public Optional<Double> getUnitCost(Item item) {
+            int rawId = Registries.ITEM.getRawId(item);
+            if (rawId < 0 || rawId >= unitCost.length || Double.isInfinite(unitCost[rawId])) {
+                return Optional.empty();
+            }
+            return Optional.of(unitCost[rawId]);
+        }
+
+        // The recipe to craft with, present only when crafting beats buying
+        public Optional<CraftingRecipe> getCraftRecipe(Item item) {
+            int rawId = Registries.ITEM.getRawId(item);
+            return rawId >= 0 && rawId < craftedWith.length ? Optional.ofNullable(craftedWith[rawId]) : Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.profitcalc.calculator;
+
+import com.profitcalc.manager.RecipeManager;
+import com.profitcalc.model.AuctionSnapshot;
+import com.profitcalc.model.CraftingRecipe;
+import com.profitcalc.model.ProfitCalculation;
+import com.profitcalc.model.RecipeIngredient;
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+// Keeps the latest result for every recipe output in a ranked set. When the market moves, only
+// outputs whose own price or whose ingredients' prices changed are re-evaluated; the rest of the
+// results carry over untouched. The results version only moves when some result actually changed,
+// so a listing expiring above the depth any recipe reaches leaves everything built on it valid.
+public class IncrementalProfitEngine {
+    private static final Logger LOGGER = LoggerFactory.getLogger("ProfitCalc/Incremental");
+
+    // Highest margin first; the raw id keeps outputs with equal margins distinct
+    private static final Comparator<ProfitCalculation> BY_MARGIN =
+            Comparator.comparingDouble(ProfitCalculation::getProfitMargin).reversed()
+                    .thenComparingInt(calculation -> Registries.ITEM.getRawId(calculation.getItem()));
+
+    private final ProfitCalculator calculator;
+    private final Map<Item, ProfitCalculation> byOutput = new HashMap<>();
+    private final TreeSet<ProfitCalculation> ranked = new TreeSet<>(BY_MARGIN);
+    private AuctionSnapshot market;
+    private long recipeVersion = -1;
+    private long resultsVersion = 0;
+
+    IncrementalProfitEngine(ProfitCalculator calculator) {
+        this.calculator = calculator;
+    }
+
+    // Brings the results up to date with the given snapshot and returns them ranked by margin
+    public synchronized List<ProfitCalculation> refresh(AuctionSnapshot next) {
+        long currentRecipes = RecipeManager.getInstance().getRecipeVersion();
+        if (market == null || recipeVersion != currentRecipes) {
+            rebuild(next, currentRecipes);
+        } else if (next != market) {
+            update(next, next.changedSince(market));
+        }
+        return new ArrayList<>(ranked);
+    }
+
+    // Re-evaluates only the outputs that depend on the changed items
+    public synchronized void update(AuctionSnapshot next, Set<Item> changed) {
+        Set<Item> affected = RecipeManager.getInstance().getRecipeIndex().getOutputsAffectedBy(changed);
+
+        int modified = 0;
+        for (Item output : affected) {
+            ProfitCalculation previous = byOutput.get(output);
+            ProfitCalculation updated = calculator.calculateProfit(output, next).orElse(null);
+            if (sameResult(previous, updated)) {
+                continue;
+            }
+            if (previous != null) {
+                byOutput.remove(output);
+                ranked.remove(previous);
+            }
+            if (updated != null) {
+                put(updated);
+            }
+            modified++;
+        }
+        if (modified > 0) {
+            resultsVersion++;
+        }
+
+        market = next;
+        LOGGER.debug("Re-evaluated {} outputs for {} changed items, {} changed", affected.size(), changed.size(), modified);
+    }
+
+    // Bumped whenever refresh or update changes any result
+    public synchronized long getResultsVersion() {
+        return resultsVersion;
+    }
+
+    private void rebuild(AuctionSnapshot next, long currentRecipes) {
+        byOutput.clear();
+        ranked.clear();
+        for (ProfitCalculation calculation : calculator.evaluateAll(next)) {
+            put(calculation);
+        }
+        market = next;
+        recipeVersion = currentRecipes;
+        resultsVersion++;
+        LOGGER.debug("Evaluated all {} outputs", byOutput.size());
+    }
+
+    // Same prices, same recipe and same per-material prices, so nothing shown or ranked would differ
+    private static boolean sameResult(ProfitCalculation a, ProfitCalculation b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        if (a.getSellingPrice() != b.getSellingPrice() || a.getMaterialsCost() != b.getMaterialsCost()
+                || !a.getMaterialPrices().equals(b.getMaterialPrices())
+                || a.getRecipe().getOutputQuantity() != b.getRecipe().getOutputQuantity()) {
+            return false;
+        }
+        List<RecipeIngredient> left = a.getRecipe().getIngredients();
+        List<RecipeIngredient> right = b.getRecipe().getIngredients();
+        if (left.size() != right.size()) {
+            return false;
+        }
+        for (int i = 0; i < left.size(); i++) {
+            if (left.get(i).getItem() != right.get(i).getItem() || left.get(i).getQuantity() != right.get(i).getQuantity()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void put(ProfitCalculation calculation) {
+        byOutput.put(calculation.getItem(), calculation);
+        ranked.add(calculation);
+    }
+}
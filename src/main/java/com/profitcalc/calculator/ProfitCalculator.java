@@ -1,20 +1,46 @@
 package com.profitcalc.calculator;
 
+import com.profitcalc.config.ConfigManager;
 import com.profitcalc.manager.AuctionHouseManager;
 import com.profitcalc.manager.RecipeManager;
+import com.profitcalc.model.AuctionSnapshot;
 import com.profitcalc.model.CraftingRecipe;
+import com.profitcalc.model.IngredientPrices;
+import com.profitcalc.model.ItemListings;
 import com.profitcalc.model.ProfitCalculation;
+import com.profitcalc.model.RecipeIndex;
 import com.profitcalc.model.RecipeIngredient;
+import com.profitcalc.model.RecipeMatrix;
 import net.minecraft.item.Item;
 import net.minecraft.registry.Registries;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ProfitCalculator {
     private static final Logger LOGGER = LoggerFactory.getLogger("ProfitCalc/Calculator");
     private static final ProfitCalculator INSTANCE = new ProfitCalculator();
+    // Outputs evaluated per fork/join leaf; small enough to balance, large enough to amortize the split
+    private static final int PARALLEL_BATCH_SIZE = 64;
+    // One stack per item; the floor price will not hold for much more supply than that
+    private static final int PLAN_MAX_UNITS_PER_ITEM = 64;
+
+    private final IncrementalProfitEngine engine = new IncrementalProfitEngine(this);
+    private final CraftOrBuyOptimizer craftOrBuy = new CraftOrBuyOptimizer();
+    private volatile BuiltIndex budgetIndex;
+    private volatile ResultCache resultCache;
+    private final PurchasePlanner planner = new PurchasePlanner();
+    private final ArbitrageScanner arbitrage = new ArbitrageScanner();
+    // Set while a background craft-or-buy solve is queued or running
+    private final AtomicBoolean craftOrBuyQueued = new AtomicBoolean();
+    // Set while a background budget index build is queued or running
+    private final AtomicBoolean budgetIndexQueued = new AtomicBoolean();
+    private ForkJoinPool pool;
 
     private ProfitCalculator() {}
 
@@ -24,109 +50,459 @@ public class ProfitCalculator {
 
     public List<ProfitCalculation> findProfitableItems(double maxBudget) {
         List<ProfitCalculation> profitableItems = new ArrayList<>();
-        Map<Item, Double> prices = AuctionHouseManager.getInstance().getAllLowestPrices();
+        AuctionSnapshot market = AuctionHouseManager.getInstance().getSnapshot();
 
-        if (prices.isEmpty()) {
+        if (market.isEmpty()) {
             LOGGER.warn("No auction house data available. Please browse /ah first.");
             return profitableItems;
         }
 
-        // Check all items that we have recipes for
-        for (Item item : Registries.ITEM) {
-            if (RecipeManager.getInstance().hasRecipe(item)) {
-                Optional<ProfitCalculation> calculation = calculateProfit(item);
+        // Already ranked by profit margin (highest first); only outputs touched since the last call were recomputed
+        for (ProfitCalculation profit : engine.refresh(market)) {
+            // Check if it's profitable and within budget
+            if (profit.isProfitable() && profit.getMaterialsCost() <= maxBudget) {
+                profitableItems.add(profit);
+            }
+        }
 
-                if (calculation.isPresent()) {
-                    ProfitCalculation profit = calculation.get();
+        LOGGER.info("Found {} profitable items within budget ${}", profitableItems.size(), maxBudget);
+        return profitableItems;
+    }
 
-                    // Check if it's profitable and within budget
-                    if (profit.isProfitable() && profit.getMaterialsCost() <= maxBudget) {
-                        profitableItems.add(profit);
-                    }
+    // The best k profitable items within budget. Each output gets an optimistic bound from floor prices
+    // first; outputs are then evaluated best bound first into a bounded heap, and the scan stops as
+    // soon as no remaining bound can beat the worst result kept.
+    // Answered from the snapshot's budget index when k fits it, so sweeping budgets or switching the
+    // ranking is a lookup; larger k falls back to the bounded scan below
+    public List<ProfitCalculation> findTopProfitable(double maxBudget, int k, Ranking ranking) {
+        AuctionSnapshot market = AuctionHouseManager.getInstance().getSnapshot();
+        if (!market.isEmpty() && k <= BudgetIndex.CAPACITY) {
+            return getBudgetIndex(market).query(maxBudget, k, ranking);
+        }
+        return findTopProfitable(market, maxBudget, k, ranking);
+    }
+
+    // Rebuilt only when the incremental results actually change, so an expiry that leaves every
+    // result as it was keeps the index
+    public synchronized BudgetIndex getBudgetIndex(AuctionSnapshot market) {
+        List<ProfitCalculation> results;
+        long resultsVersion;
+        long recipeVersion = RecipeManager.getInstance().getRecipeVersion();
+        synchronized (engine) {
+            results = engine.refresh(market);
+            resultsVersion = engine.getResultsVersion();
+        }
+        BuiltIndex built = budgetIndex;
+        BudgetIndex index = built == null ? null : built.index;
+        if (index == null || !index.isFor(resultsVersion)) {
+            index = new BudgetIndex(resultsVersion, results);
+            LOGGER.debug("Indexed {} profitable items by materials cost", index.size());
+        }
+        budgetIndex = new BuiltIndex(index, market.getVersion(), recipeVersion);
+        return index;
+    }
+
+    // The most recent budget index, possibly for an older snapshot, and empty before the first one.
+    // Never evaluates on the caller's thread, so the GUI can query it on every keystroke; an out of
+    // date index queues one background build against whatever snapshot is current when it runs.
+    public Optional<BudgetIndex> getLatestBudgetIndex() {
+        BuiltIndex latest = budgetIndex;
+        long marketVersion = AuctionHouseManager.getInstance().getSnapshot().getVersion();
+        if (latest == null || !latest.isFor(marketVersion, RecipeManager.getInstance().getRecipeVersion())) {
+            buildBudgetIndexInBackground();
+        }
+        return latest == null ? Optional.empty() : Optional.of(latest.index);
+    }
+
+    private void buildBudgetIndexInBackground() {
+        if (!budgetIndexQueued.compareAndSet(false, true)) {
+            return;
+        }
+        getPool().execute(() -> {
+            try {
+                AuctionSnapshot market = AuctionHouseManager.getInstance().getSnapshot();
+                if (!market.isEmpty()) {
+                    getBudgetIndex(market);
                 }
+            } catch (Exception e) {
+                LOGGER.error("Budget index build failed: {}", e.getMessage());
+            } finally {
+                budgetIndexQueued.set(false);
             }
+        });
+    }
+
+    public List<ProfitCalculation> findTopProfitable(AuctionSnapshot market, double maxBudget, int k, Ranking ranking) {
+        return findTopProfitable(market, maxBudget, k, ranking, true);
+    }
+
+    // Without the result cache every candidate is costed, which is what a benchmark wants to time
+    public List<ProfitCalculation> findTopProfitable(AuctionSnapshot market, double maxBudget, int k, Ranking ranking,
+                                                     boolean cached) {
+        if (market.isEmpty() || k <= 0) {
+            return new ArrayList<>();
         }
 
-        // Sort by profit margin (highest first)
-        profitableItems.sort((a, b) -> Double.compare(b.getProfitMargin(), a.getProfitMargin()));
+        RecipeMatrix matrix = RecipeManager.getInstance().getRecipeMatrix();
+        IngredientPrices prices = matrix.pricesFor(market);
 
-        LOGGER.info("Found {} profitable items within budget ${}", profitableItems.size(), maxBudget);
-        return profitableItems;
+        List<Candidate> candidates = new ArrayList<>();
+        for (int group = 0; group < matrix.outputCount(); group++) {
+            int output = matrix.outputRawId(group);
+            if (!prices.isListed(output)) {
+                continue;
+            }
+
+            double bound = Double.NEGATIVE_INFINITY;
+            double cheapestBound = Double.MAX_VALUE;
+            for (int row = matrix.firstRow(group); row < matrix.endRow(group); row++) {
+                double costBound = matrix.rowLowerBound(row, prices);
+                if (costBound < 0) {
+                    continue;
+                }
+                double sellingPrice = prices.floorPrice(output) * matrix.recipe(row).getOutputQuantity();
+                bound = Math.max(bound, ranking.upperBound(sellingPrice, costBound));
+                cheapestBound = Math.min(cheapestBound, costBound);
+            }
+
+            // The recipe actually used costs at least the cheapest bound, so this output cannot fit the budget
+            if (cheapestBound <= maxBudget && bound > 0) {
+                candidates.add(new Candidate(group, bound));
+            }
+        }
+        candidates.sort((a, b) -> Double.compare(b.bound, a.bound));
+
+        // Worst kept result at the head
+        PriorityQueue<ProfitCalculation> top = new PriorityQueue<>(k + 1, ranking.order().reversed());
+        int evaluated = 0;
+        for (Candidate candidate : candidates) {
+            if (top.size() == k && candidate.bound <= ranking.score(top.peek())) {
+                break;
+            }
+            evaluated++;
+            Optional<ProfitCalculation> calculation = cached
+                    ? evaluateCached(candidate.group, matrix, market)
+                    : evaluate(candidate.group, matrix, market);
+            if (calculation.isPresent()) {
+                ProfitCalculation profit = calculation.get();
+                if (profit.isProfitable() && profit.getMaterialsCost() <= maxBudget) {
+                    top.add(profit);
+                    if (top.size() > k) {
+                        top.poll();
+                    }
+                }
+            }
+        }
+
+        List<ProfitCalculation> result = new ArrayList<>(top);
+        result.sort(ranking.order());
+        LOGGER.debug("Top {} by {}: evaluated {} of {} candidate outputs", k, ranking, evaluated, candidates.size());
+        return result;
     }
 
     public Optional<ProfitCalculation> calculateProfit(Item item) {
-        AuctionHouseManager ahManager = AuctionHouseManager.getInstance();
-        RecipeManager recipeManager = RecipeManager.getInstance();
+        // One snapshot for the whole calculation, so every price comes from the same market
+        AuctionSnapshot market = AuctionHouseManager.getInstance().getSnapshot();
+        return calculateProfit(item, market);
+    }
 
-        // Get selling price for the item
-        Optional<Double> sellingPriceOpt = ahManager.getLowestPrice(item);
-        if (sellingPriceOpt.isEmpty()) {
-            return Optional.empty();
+    public Optional<ProfitCalculation> calculateProfit(Item item, AuctionSnapshot market) {
+        RecipeMatrix matrix = RecipeManager.getInstance().getRecipeMatrix();
+        int group = matrix.groupOf(item);
+        return group < 0 ? Optional.empty() : evaluateCached(group, matrix, market);
+    }
+
+    // Called whenever a refresh publishes a new snapshot; cached results move forward lazily, and
+    // the budget index and craft-or-buy are rebuilt in the background
+    public void onSnapshotPublished(AuctionSnapshot snapshot) {
+        if (!snapshot.isEmpty()) {
+            arbitrage.scan(snapshot);
+            buildBudgetIndexInBackground();
+            solveCraftOrBuyInBackground();
         }
+    }
 
-        double sellingPrice = sellingPriceOpt.get();
+    // Repeated queries against the same snapshot and recipe book are answered from memory
+    private Optional<ProfitCalculation> evaluateCached(int group, RecipeMatrix matrix, AuctionSnapshot market) {
+        ResultCache cache = getResultCache(market, matrix);
+        if (cache == null) {
+            return evaluate(group, matrix, market);
+        }
+        return cache.get(matrix.outputRawId(group), output -> evaluate(group, matrix, market));
+    }
 
-        // Get all available prices
-        Map<Item, Double> prices = ahManager.getAllLowestPrices();
+    // The cache for this snapshot, or null for a snapshot older than the cached one, so a stale
+    // caller never evicts results for the current market. A newer snapshot of the same recipe book
+    // inherits every result its changed items cannot reach. Markets that were never published
+    // (negative versions, like the benchmark's) are not cached.
+    private ResultCache getResultCache(AuctionSnapshot market, RecipeMatrix matrix) {
+        if (market.getVersion() < 0) {
+            return null;
+        }
+        ResultCache cache = resultCache;
+        if (cache != null && cache.isFor(market.getVersion(), matrix.getVersion())) {
+            return cache;
+        }
+        synchronized (this) {
+            cache = resultCache;
+            if (cache == null || !cache.isFor(market.getVersion(), matrix.getVersion())) {
+                if (cache != null && cache.getMarketVersion() > market.getVersion()) {
+                    return null;
+                }
+                cache = advance(cache, market, matrix);
+                resultCache = cache;
+            }
+            return cache;
+        }
+    }
 
-        // Get cheapest recipe
-        Optional<CraftingRecipe> recipeOpt = recipeManager.getCheapestRecipe(item, prices);
-        if (recipeOpt.isEmpty()) {
-            return Optional.empty();
+    private static ResultCache advance(ResultCache cache, AuctionSnapshot market, RecipeMatrix matrix) {
+        RecipeIndex recipes = RecipeManager.getInstance().getRecipeIndex();
+        if (cache == null || cache.getRecipeVersion() != matrix.getVersion() || recipes.getVersion() != matrix.getVersion()) {
+            return new ResultCache(market, matrix.getVersion());
         }
+        Set<Integer> affected = new HashSet<>();
+        for (Item output : recipes.getOutputsAffectedBy(market.changedSince(cache.getMarket()))) {
+            affected.add(Registries.ITEM.getRawId(output));
+        }
+        return cache.advance(market, affected);
+    }
+
+    // Splits the budget across every profitable recipe, with recipes that share ingredients competing
+    // for the same listings. Selling is assumed at the floor price, so output per item is capped.
+    public PurchasePlanner.Plan planPurchases(double budget) {
+        AuctionSnapshot market = AuctionHouseManager.getInstance().getSnapshot();
+        List<ProfitCalculation> candidates = new ArrayList<>();
+        if (!market.isEmpty()) {
+            for (ProfitCalculation calculation : engine.refresh(market)) {
+                if (calculation.isProfitable()) {
+                    candidates.add(calculation);
+                }
+            }
+        }
+        return planner.plan(market, candidates, budget, PLAN_MAX_UNITS_PER_ITEM);
+    }
+
+    // Craft-and-uncraft loops at the current floor prices, best return first
+    public List<ArbitrageScanner.Loop> scanArbitrage() {
+        return arbitrage.scan(AuctionHouseManager.getInstance().getSnapshot());
+    }
+
+    public ArbitrageScanner getArbitrageScanner() {
+        return arbitrage;
+    }
+
+    // Cheapest buy-or-craft cost of every item on the current market, solved once per snapshot.
+    // Solves on the calling thread when needed; the GUI uses getLatestCraftOrBuy instead.
+    public CraftOrBuyOptimizer.Solution getCraftOrBuy() {
+        return craftOrBuy.solve(AuctionHouseManager.getInstance().getSnapshot());
+    }
 
-        CraftingRecipe recipe = recipeOpt.get();
+    // The most recent solution, possibly for an older snapshot, and empty before the first one.
+    // Never solves on the caller's thread, so the render loop can call it every frame; an out of
+    // date result queues one background solve against whatever snapshot is current when it runs.
+    public Optional<CraftOrBuyOptimizer.Solution> getLatestCraftOrBuy() {
+        CraftOrBuyOptimizer.Solution latest = craftOrBuy.getLatest();
+        long marketVersion = AuctionHouseManager.getInstance().getSnapshot().getVersion();
+        if (latest == null || !latest.isFor(marketVersion, RecipeManager.getInstance().getRecipeVersion())) {
+            solveCraftOrBuyInBackground();
+        }
+        return Optional.ofNullable(latest);
+    }
 
-        // Calculate materials cost
-        double materialsCost = recipeManager.calculateRecipeCost(recipe, prices);
-        if (materialsCost < 0) {
+    private void solveCraftOrBuyInBackground() {
+        if (!craftOrBuyQueued.compareAndSet(false, true)) {
+            return;
+        }
+        getPool().execute(() -> {
+            try {
+                craftOrBuy.solve(AuctionHouseManager.getInstance().getSnapshot());
+            } catch (Exception e) {
+                LOGGER.error("Craft-or-buy solve failed: {}", e.getMessage());
+            } finally {
+                craftOrBuyQueued.set(false);
+            }
+        });
+    }
+
+    public List<ProfitCalculation> calculateAllProfits() {
+        List<ProfitCalculation> allCalculations = new ArrayList<>();
+        AuctionSnapshot market = AuctionHouseManager.getInstance().getSnapshot();
+
+        if (market.isEmpty()) {
+            LOGGER.warn("No auction house data available");
+            return allCalculations;
+        }
+
+        allCalculations.addAll(engine.refresh(market));
+
+        // Sort by profit (highest first)
+        allCalculations.sort((a, b) -> Double.compare(b.getProfit(), a.getProfit()));
+
+        return allCalculations;
+    }
+
+    // Single pass over the outputs that have recipes, all priced against the same snapshot.
+    // Each recipe is costed exactly once; unsorted, callers filter and order the results.
+    public List<ProfitCalculation> evaluateAll(AuctionSnapshot market) {
+        return ConfigManager.getInstance().getCalculationThreads() > 1
+                ? evaluateParallel(market)
+                : evaluateSequential(market);
+    }
+
+    public List<ProfitCalculation> evaluateSequential(AuctionSnapshot market) {
+        RecipeMatrix matrix = RecipeManager.getInstance().getRecipeMatrix();
+        List<ProfitCalculation> results = new ArrayList<>();
+        for (int group = 0; group < matrix.outputCount(); group++) {
+            evaluate(group, matrix, market).ifPresent(results::add);
+        }
+        return results;
+    }
+
+    // Recipes are independent once the snapshot is fixed, so the outputs are split across a
+    // fork/join pool. Each leaf fills its own list and the lists are concatenated on the way up.
+    public List<ProfitCalculation> evaluateParallel(AuctionSnapshot market) {
+        RecipeMatrix matrix = RecipeManager.getInstance().getRecipeMatrix();
+        return getPool().invoke(new EvaluateTask(matrix, 0, matrix.outputCount(), market));
+    }
+
+    private synchronized ForkJoinPool getPool() {
+        int threads = Math.max(1, ConfigManager.getInstance().getCalculationThreads());
+        if (pool == null || pool.getParallelism() != threads) {
+            if (pool != null) {
+                pool.shutdown();
+            }
+            pool = new ForkJoinPool(threads, forkJoinPool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                thread.setName("ProfitCalc-Calculator-" + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+        }
+        return pool;
+    }
+
+    private Optional<ProfitCalculation> evaluate(int group, RecipeMatrix matrix, AuctionSnapshot market) {
+        // Get selling price (per unit) for the item
+        ItemListings listings = market.getItemListings(matrix.outputRawId(group));
+        if (listings.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // Cheapest recipe, keeping its cost so it is never computed twice
+        IngredientPrices prices = matrix.pricesFor(market);
+        int cheapestRow = -1;
+        double materialsCost = Double.MAX_VALUE;
+        for (int row = matrix.firstRow(group); row < matrix.endRow(group); row++) {
+            double cost = matrix.rowCost(row, prices);
+            if (cost >= 0 && cost < materialsCost) {
+                materialsCost = cost;
+                cheapestRow = row;
+            }
+        }
+        if (cheapestRow < 0) {
             return Optional.empty(); // Missing price data
         }
 
+        // With any-of slots filled by the item rowCost bought them from
+        CraftingRecipe recipe = matrix.resolvedRecipe(cheapestRow, prices);
+        Item item = recipe.getOutput();
+
         // Adjust for output quantity
-        double adjustedSellingPrice = sellingPrice * recipe.getOutputQuantity();
-        double adjustedMaterialsCost = materialsCost;
+        double adjustedSellingPrice = listings.getMin() * recipe.getOutputQuantity();
 
-        // Get material prices for the calculation
+        // Effective per-unit price paid for each material once market depth is taken into account,
+        // over every unit the whole listings bought actually deliver
         Map<Item, Double> materialPrices = new HashMap<>();
         for (RecipeIngredient ingredient : recipe.getIngredients()) {
             Item material = ingredient.getItem();
-            if (prices.containsKey(material)) {
-                materialPrices.put(material, prices.get(material));
+            ItemListings materialListings = market.getItemListings(material);
+            double cost = materialListings.costForUnits(ingredient.getQuantity());
+            if (cost >= 0) {
+                materialPrices.put(material, cost / materialListings.unitsObtained(ingredient.getQuantity()));
             }
         }
 
-        ProfitCalculation calculation = new ProfitCalculation(
-            item,
-            adjustedSellingPrice,
-            adjustedMaterialsCost,
-            recipe,
-            materialPrices
-        );
+        return Optional.of(new ProfitCalculation(item, adjustedSellingPrice, materialsCost, recipe, materialPrices));
+    }
+
+    public enum Ranking {
+        PROFIT {
+            @Override
+            double score(ProfitCalculation calculation) {
+                return calculation.getProfit();
+            }
+
+            @Override
+            double upperBound(double sellingPrice, double costLowerBound) {
+                return sellingPrice - costLowerBound;
+            }
+        },
+        MARGIN {
+            @Override
+            double score(ProfitCalculation calculation) {
+                return calculation.getProfitMargin();
+            }
+
+            @Override
+            double upperBound(double sellingPrice, double costLowerBound) {
+                return costLowerBound > 0
+                        ? (sellingPrice - costLowerBound) / costLowerBound * 100
+                        : Double.POSITIVE_INFINITY;
+            }
+        };
+
+        abstract double score(ProfitCalculation calculation);
 
-        return Optional.of(calculation);
+        // Best score reachable given the selling price and a lower bound on the materials cost
+        abstract double upperBound(double sellingPrice, double costLowerBound);
+
+        // Highest score first
+        public Comparator<ProfitCalculation> order() {
+            return (a, b) -> Double.compare(score(b), score(a));
+        }
     }
 
-    public List<ProfitCalculation> calculateAllProfits() {
-        List<ProfitCalculation> allCalculations = new ArrayList<>();
-        Map<Item, Double> prices = AuctionHouseManager.getInstance().getAllLowestPrices();
+    private static class Candidate {
+        private final int group;
+        private final double bound;
 
-        if (prices.isEmpty()) {
-            LOGGER.warn("No auction house data available");
-            return allCalculations;
+        Candidate(int group, double bound) {
+            this.group = group;
+            this.bound = bound;
         }
+    }
 
-        for (Item item : prices.keySet()) {
-            if (RecipeManager.getInstance().hasRecipe(item)) {
-                Optional<ProfitCalculation> calculation = calculateProfit(item);
-                calculation.ifPresent(allCalculations::add);
-            }
+    private class EvaluateTask extends RecursiveTask<List<ProfitCalculation>> {
+        private final RecipeMatrix matrix;
+        private final int from;
+        private final int to;
+        private final AuctionSnapshot market;
+
+        EvaluateTask(RecipeMatrix matrix, int from, int to, AuctionSnapshot market) {
+            this.matrix = matrix;
+            this.from = from;
+            this.to = to;
+            this.market = market;
         }
 
-        // Sort by profit (highest first)
-        allCalculations.sort((a, b) -> Double.compare(b.getProfit(), a.getProfit()));
+        @Override
+        protected List<ProfitCalculation> compute() {
+            if (to - from <= PARALLEL_BATCH_SIZE) {
+                List<ProfitCalculation> results = new ArrayList<>(to - from);
+                for (int group = from; group < to; group++) {
+                    evaluate(group, matrix, market).ifPresent(results::add);
+                }
+                return results;
+            }
 
-        return allCalculations;
+            int mid = (from + to) >>> 1;
+            EvaluateTask left = new EvaluateTask(matrix, from, mid, market);
+            left.fork();
+            List<ProfitCalculation> results = new EvaluateTask(matrix, mid, to, market).compute();
+            List<ProfitCalculation> leftResults = left.join();
+            leftResults.addAll(results);
+            return leftResults;
+        }
     }
 
     public String formatProfit(ProfitCalculation calculation) {
@@ -140,6 +516,7 @@ public class ProfitCalculator {
 
         sb.append("\nRecipe:\n");
         CraftingRecipe recipe = calculation.getRecipe();
+        CraftOrBuyOptimizer.Solution craftOrBuy = getCraftOrBuy();
         for (RecipeIngredient ingredient : recipe.getIngredients()) {
             Item item = ingredient.getItem();
             int quantity = ingredient.getQuantity();
@@ -150,8 +527,30 @@ public class ProfitCalculator {
                     item.getName().getString(),
                     price != null ? price : 0,
                     price != null ? price * quantity : 0));
+
+            // Point out intermediates that are cheaper to craft than to buy
+            if (craftOrBuy.getCraftRecipe(item).isPresent()) {
+                sb.append(String.format("    (craft instead @ $%.2f ea)\n", craftOrBuy.getUnitCost(item).orElse(0.0)));
+            }
         }
 
         return sb.toString();
     }
+
+    // A budget index with the market and recipe versions it was last built or confirmed for
+    private static class BuiltIndex {
+        private final BudgetIndex index;
+        private final long marketVersion;
+        private final long recipeVersion;
+
+        private BuiltIndex(BudgetIndex index, long marketVersion, long recipeVersion) {
+            this.index = index;
+            this.marketVersion = marketVersion;
+            this.recipeVersion = recipeVersion;
+        }
+
+        private boolean isFor(long marketVersion, long recipeVersion) {
+            return this.marketVersion == marketVersion && this.recipeVersion == recipeVersion;
+        }
+    }
 }
@@ -0,0 +1,208 @@
+package com.profitcalc.calculator;
+
+import com.profitcalc.model.AuctionSnapshot;
+import com.profitcalc.model.CraftingRecipe;
+import com.profitcalc.model.ItemListings;
+import com.profitcalc.model.ProfitCalculation;
+import com.profitcalc.model.RecipeIngredient;
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+// Spreads one budget over several recipes at once, with every order book consumed only once.
+// Crafts are picked greedily by marginal profit per dollar: the next craft of a recipe pays for
+// the next units of each ingredient still left in the book, after earlier picks (of any recipe)
+// took the cheaper ones. Marginal costs only rise, so heap entries are refreshed lazily when
+// they reach the top instead of updating every recipe that shares an ingredient.
+public class PurchasePlanner {
+    private static final Logger LOGGER = LoggerFactory.getLogger("ProfitCalc/Planner");
+
+    public Plan plan(AuctionSnapshot market, List<ProfitCalculation> candidates, double budget, int maxUnitsPerItem) {
+        long start = System.nanoTime();
+        long[] consumed = new long[Registries.ITEM.size()];
+
+        PriorityQueue<Entry> queue = new PriorityQueue<>();
+        for (ProfitCalculation calculation : candidates) {
+            Allocation allocation = new Allocation(calculation,
+                    Math.max(1, maxUnitsPerItem / calculation.getRecipe().getOutputQuantity()));
+            double cost = allocation.marginalCost(market, consumed);
+            if (cost >= 0 && allocation.revenuePerCraft > cost) {
+                queue.add(new Entry(allocation, ratio(allocation.revenuePerCraft, cost)));
+            }
+        }
+
+        double remaining = budget;
+        List<Allocation> used = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            Allocation allocation = queue.poll().allocation;
+            double cost = allocation.marginalCost(market, consumed);
+            if (cost < 0 || cost >= allocation.revenuePerCraft || cost > remaining) {
+                continue; // Books ran dry, no longer profitable, or no longer affordable; costs only rise
+            }
+
+            // Another recipe took the cheap units since this entry was queued; requeue at its real value
+            double ratio = ratio(allocation.revenuePerCraft, cost);
+            if (!queue.isEmpty() && ratio < queue.peek().ratio) {
+                queue.add(new Entry(allocation, ratio));
+                continue;
+            }
+
+            allocation.consume(consumed);
+            if (allocation.crafts == 0) {
+                used.add(allocation);
+            }
+            allocation.crafts++;
+            allocation.cost += cost;
+            remaining -= cost;
+
+            if (allocation.crafts < allocation.maxCrafts) {
+                queue.add(new Entry(allocation, ratio));
+            }
+        }
+
+        used.sort((a, b) -> Double.compare(b.getProfit(), a.getProfit()));
+        Plan plan = new Plan(used, consumed, budget - remaining);
+        LOGGER.debug("Planned {} crafts across {} recipes for ${} in {} ms", plan.getTotalCrafts(),
+                used.size(), String.format("%.2f", plan.getTotalCost()), (System.nanoTime() - start) / 1_000_000);
+        return plan;
+    }
+
+    private static double ratio(double revenue, double cost) {
+        return cost > 0 ? (revenue - cost) / cost : Double.POSITIVE_INFINITY;
+    }
+
+    public static class Plan {
+        private final List<Allocation> allocations;
+        private final Map<Item, Long> purchases = new HashMap<>();
+        private final double totalCost;
+
+        private Plan(List<Allocation> allocations, long[] consumed, double totalCost) {
+            this.allocations = Collections.unmodifiableList(allocations);
+            this.totalCost = totalCost;
+            for (int rawId = 0; rawId < consumed.length; rawId++) {
+                if (consumed[rawId] > 0) {
+                    purchases.put(Registries.ITEM.get(rawId), consumed[rawId]);
+                }
+            }
+        }
+
+        public List<Allocation> getAllocations() {
+            return allocations;
+        }
+
+        // Units to buy of every ingredient across the whole plan
+        public Map<Item, Long> getPurchases() {
+            return Collections.unmodifiableMap(purchases);
+        }
+
+        public double getTotalCost() {
+            return totalCost;
+        }
+
+        public double getTotalRevenue() {
+            return allocations.stream().mapToDouble(Allocation::getRevenue).sum();
+        }
+
+        public double getTotalProfit() {
+            return getTotalRevenue() - totalCost;
+        }
+
+        public int getTotalCrafts() {
+            return allocations.stream().mapToInt(Allocation::getCrafts).sum();
+        }
+    }
+
+    public static class Allocation {
+        private final CraftingRecipe recipe;
+        private final double revenuePerCraft;
+        private final int maxCrafts;
+        // Distinct ingredients, with quantities merged, so shared books are walked once per craft
+        private final int[] ingredientIds;
+        private final int[] quantities;
+        private int crafts = 0;
+        private double cost = 0;
+
+        private Allocation(ProfitCalculation calculation, int maxCrafts) {
+            this.recipe = calculation.getRecipe();
+            this.revenuePerCraft = calculation.getSellingPrice();
+            this.maxCrafts = maxCrafts;
+
+            Map<Integer, Integer> merged = new LinkedHashMap<>();
+            for (RecipeIngredient ingredient : recipe.getIngredients()) {
+                merged.merge(Registries.ITEM.getRawId(ingredient.getItem()), ingredient.getQuantity(), Integer::sum);
+            }
+            this.ingredientIds = new int[merged.size()];
+            this.quantities = new int[merged.size()];
+            int i = 0;
+            for (Map.Entry<Integer, Integer> entry : merged.entrySet()) {
+                ingredientIds[i] = entry.getKey();
+                quantities[i] = entry.getValue();
+                i++;
+            }
+        }
+
+        // Cost of one more craft given what the plan has already bought, or -1 when a book is exhausted
+        private double marginalCost(AuctionSnapshot market, long[] consumed) {
+            double total = 0;
+            for (int i = 0; i < ingredientIds.length; i++) {
+                ItemListings listings = market.getItemListings(ingredientIds[i]);
+                long already = consumed[ingredientIds[i]];
+                double upTo = listings.costForUnits(already + quantities[i]);
+                if (upTo < 0) {
+                    return -1;
+                }
+                total += upTo - listings.costForUnits(already);
+            }
+            return total;
+        }
+
+        private void consume(long[] consumed) {
+            for (int i = 0; i < ingredientIds.length; i++) {
+                consumed[ingredientIds[i]] += quantities[i];
+            }
+        }
+
+        public Item getItem() {
+            return recipe.getOutput();
+        }
+
+        public CraftingRecipe getRecipe() {
+            return recipe;
+        }
+
+        public int getCrafts() {
+            return crafts;
+        }
+
+        public double getCost() {
+            return cost;
+        }
+
+        public double getRevenue() {
+            return crafts * revenuePerCraft;
+        }
+
+        public double getProfit() {
+            return getRevenue() - cost;
+        }
+    }
+
+    // Highest profit per dollar first
+    private static class Entry implements Comparable<Entry> {
+        private final Allocation allocation;
+        private final double ratio;
+
+        Entry(Allocation allocation, double ratio) {
+            this.allocation = allocation;
+            this.ratio = ratio;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Double.compare(other.ratio, ratio);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.profitcalc.calculator;
+
+import com.profitcalc.model.AuctionSnapshot;
+import com.profitcalc.model.ProfitCalculation;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+// Evaluated results for one snapshot and one recipe book, keyed by output raw id. Misses are cached
+// too, so an item without usable prices is not re-costed on every query. Never updated in place
+// across snapshots: a newer snapshot gets a new cache that carries over every result the changed
+// listings cannot have affected, so an expiry pass or a chat listing only re-costs what it touched.
+// This deliberately stops short of dropping the whole cache per snapshot: with an expiry tick every
+// second, wholesale invalidation would re-cost the entire market about once a second.
+public class ResultCache {
+    private final AuctionSnapshot market;
+    private final long recipeVersion;
+    private final ConcurrentHashMap<Integer, Optional<ProfitCalculation>> byOutput = new ConcurrentHashMap<>();
+
+    ResultCache(AuctionSnapshot market, long recipeVersion) {
+        this.market = market;
+        this.recipeVersion = recipeVersion;
+    }
+
+    // The cache for a newer snapshot of the same recipe book, without the given outputs
+    ResultCache advance(AuctionSnapshot next, Set<Integer> affectedOutputs) {
+        ResultCache advanced = new ResultCache(next, recipeVersion);
+        byOutput.forEach((output, result) -> {
+            if (!affectedOutputs.contains(output)) {
+                advanced.byOutput.put(output, result);
+            }
+        });
+        return advanced;
+    }
+
+    public boolean isFor(long marketVersion, long recipeVersion) {
+        return market.getVersion() == marketVersion && this.recipeVersion == recipeVersion;
+    }
+
+    public AuctionSnapshot getMarket() {
+        return market;
+    }
+
+    public long getMarketVersion() {
+        return market.getVersion();
+    }
+
+    public long getRecipeVersion() {
+        return recipeVersion;
+    }
+
+    public int size() {
+        return byOutput.size();
+    }
+
+    Optional<ProfitCalculation> get(int outputRawId, IntFunction<Optional<ProfitCalculation>> evaluate) {
+        Optional<ProfitCalculation> cached = byOutput.get(outputRawId);
+        if (cached != null) {
+            return cached;
+        }
+        // Evaluated outside the map so slow outputs never block other keys; a racing duplicate is harmless
+        Optional<ProfitCalculation> result = evaluate.apply(outputRawId);
+        Optional<ProfitCalculation> raced = byOutput.putIfAbsent(outputRawId, result);
+        return raced != null ? raced : result;
+    }
+}
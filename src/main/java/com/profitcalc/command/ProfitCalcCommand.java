@@ -2,16 +2,24 @@ package com.profitcalc.command;
 
 import com.mojang.brigadier.Command;
 import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.DoubleArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import com.profitcalc.api.DonutSMPApiClient;
+import com.profitcalc.calculator.ArbitrageScanner;
+import com.profitcalc.calculator.ProfitCalculator;
+import com.profitcalc.calculator.PurchasePlanner;
 import com.profitcalc.config.ConfigManager;
 import com.profitcalc.manager.AuctionHouseManager;
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.text.Text;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 public class ProfitCalcCommand {
+    private static final int PLAN_LINES = 10;
 
     public static void register(CommandDispatcher<ServerCommandSource> dispatcher) {
         dispatcher.register(CommandManager.literal("profitcalc")
@@ -22,6 +30,11 @@ public class ProfitCalcCommand {
                         .executes(ProfitCalcCommand::refreshAuctions))
                 .then(CommandManager.literal("status")
                         .executes(ProfitCalcCommand::showStatus))
+                .then(CommandManager.literal("plan")
+                        .then(CommandManager.argument("budget", DoubleArgumentType.doubleArg(0))
+                                .executes(ProfitCalcCommand::planPurchases)))
+                .then(CommandManager.literal("arbitrage")
+                        .executes(ProfitCalcCommand::showArbitrage))
                 .executes(ProfitCalcCommand::showHelp));
     }
 
@@ -71,6 +84,10 @@ public class ProfitCalcCommand {
                 int count = AuctionHouseManager.getInstance().getTotalItems();
                 context.getSource().sendFeedback(() ->
                         Text.literal(String.format("§aLoaded %d auction entries!", count)), false);
+            } else if (AuctionHouseManager.getInstance().getResumePage() > 0) {
+                int page = AuctionHouseManager.getInstance().getResumePage();
+                context.getSource().sendFeedback(() ->
+                        Text.literal(String.format("§eRefresh incomplete. Run /profitcalc refresh to resume from page %d.", page)), false);
             } else {
                 context.getSource().sendFeedback(() ->
                         Text.literal("§cFailed to load auction data. Check logs for details."), false);
@@ -85,6 +102,8 @@ public class ProfitCalcCommand {
         int totalItems = AuctionHouseManager.getInstance().getTotalItems();
         long timeSinceRefresh = AuctionHouseManager.getInstance().getTimeSinceLastRefresh();
         boolean isRefreshing = AuctionHouseManager.getInstance().isRefreshing();
+        boolean complete = AuctionHouseManager.getInstance().isSnapshotComplete();
+        int resumePage = AuctionHouseManager.getInstance().getResumePage();
 
         context.getSource().sendFeedback(() ->
                 Text.literal("§6=== Profit Calculator Status ==="), false);
@@ -96,6 +115,17 @@ public class ProfitCalcCommand {
         context.getSource().sendFeedback(() ->
                 Text.literal(String.format("§eCached Items: §f%d", totalItems)), false);
 
+        if (totalItems > 0) {
+            context.getSource().sendFeedback(() ->
+                    Text.literal(String.format("§eSnapshot: %s",
+                            complete ? "§aComplete" : "§cPartial")), false);
+        }
+
+        if (resumePage > 0) {
+            context.getSource().sendFeedback(() ->
+                    Text.literal(String.format("§eResume From: §fpage %d", resumePage)), false);
+        }
+
         if (timeSinceRefresh > 0) {
             long minutes = timeSinceRefresh / 60000;
             context.getSource().sendFeedback(() ->
@@ -109,6 +139,68 @@ public class ProfitCalcCommand {
         return Command.SINGLE_SUCCESS;
     }
 
+    private static int planPurchases(CommandContext<ServerCommandSource> context) {
+        double budget = DoubleArgumentType.getDouble(context, "budget");
+
+        if (AuctionHouseManager.getInstance().getTotalItems() == 0) {
+            context.getSource().sendFeedback(() ->
+                    Text.literal("§cNo auction data loaded! Use /profitcalc refresh first."), false);
+            return 0;
+        }
+
+        CompletableFuture.supplyAsync(() -> ProfitCalculator.getInstance().planPurchases(budget)).thenAccept(plan -> {
+            if (plan.getAllocations().isEmpty()) {
+                context.getSource().sendFeedback(() ->
+                        Text.literal("§eNothing profitable to craft within that budget."), false);
+                return;
+            }
+
+            context.getSource().sendFeedback(() ->
+                    Text.literal(String.format("§6=== Plan: spend $%.2f, profit $%.2f ===",
+                            plan.getTotalCost(), plan.getTotalProfit())), false);
+
+            List<PurchasePlanner.Allocation> allocations = plan.getAllocations();
+            for (int i = 0; i < Math.min(PLAN_LINES, allocations.size()); i++) {
+                PurchasePlanner.Allocation allocation = allocations.get(i);
+                context.getSource().sendFeedback(() ->
+                        Text.literal(String.format("§e%dx %s §7cost $%.2f, profit §a$%.2f",
+                                allocation.getCrafts(), allocation.getItem().getName().getString(),
+                                allocation.getCost(), allocation.getProfit())), false);
+            }
+            if (allocations.size() > PLAN_LINES) {
+                context.getSource().sendFeedback(() ->
+                        Text.literal(String.format("§7...and %d more recipes", allocations.size() - PLAN_LINES)), false);
+            }
+        });
+
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private static int showArbitrage(CommandContext<ServerCommandSource> context) {
+        if (AuctionHouseManager.getInstance().getTotalItems() == 0) {
+            context.getSource().sendFeedback(() ->
+                    Text.literal("§cNo auction data loaded! Use /profitcalc refresh first."), false);
+            return 0;
+        }
+
+        List<ArbitrageScanner.Loop> loops = ProfitCalculator.getInstance().scanArbitrage();
+        if (loops.isEmpty()) {
+            context.getSource().sendFeedback(() ->
+                    Text.literal("§eNo arbitrage loops at current prices."), false);
+            return Command.SINGLE_SUCCESS;
+        }
+
+        context.getSource().sendFeedback(() ->
+                Text.literal("§6=== Arbitrage Loops ==="), false);
+        for (int i = 0; i < Math.min(PLAN_LINES, loops.size()); i++) {
+            ArbitrageScanner.Loop loop = loops.get(i);
+            context.getSource().sendFeedback(() ->
+                    Text.literal(String.format("§a+%.1f%% §7%s", loop.getExpectedReturn() * 100, loop.describe())), false);
+        }
+
+        return Command.SINGLE_SUCCESS;
+    }
+
     private static int showHelp(CommandContext<ServerCommandSource> context) {
         context.getSource().sendFeedback(() ->
                 Text.literal("§6=== Profit Calculator Commands ==="), false);
@@ -118,6 +210,10 @@ public class ProfitCalcCommand {
                 Text.literal("§e/profitcalc refresh §7- Refresh auction data from API"), false);
         context.getSource().sendFeedback(() ->
                 Text.literal("§e/profitcalc status §7- Show current status"), false);
+        context.getSource().sendFeedback(() ->
+                Text.literal("§e/profitcalc plan <budget> §7- Split a budget across profitable crafts"), false);
+        context.getSource().sendFeedback(() ->
+                Text.literal("§e/profitcalc arbitrage §7- Show craft-and-uncraft loops that return a profit"), false);
         context.getSource().sendFeedback(() ->
                 Text.literal("§7Generate an API key on DonutSMP with §e/api"), false);
 
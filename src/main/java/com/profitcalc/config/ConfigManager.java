@@ -111,9 +111,41 @@ public class ConfigManager {
         save();
     }
 
+    public int getMaxConcurrentRequests() {
+        return config != null ? config.maxConcurrentRequests : 4;
+    }
+
+    public int getRequestsPerMinute() {
+        return config != null ? config.requestsPerMinute : 250;
+    }
+
+    public int getMaxRetriesPerPage() {
+        return config != null ? config.maxRetriesPerPage : 5;
+    }
+
+    public String getRetentionMode() {
+        return config != null && config.retentionMode != null ? config.retentionMode : "all";
+    }
+
+    public int getRetentionLimit() {
+        return config != null ? config.retentionLimit : 64;
+    }
+
+    // Threads used to evaluate recipes; 0 means one per available core, 1 keeps evaluation sequential
+    public int getCalculationThreads() {
+        int threads = config != null ? config.calculationThreads : 0;
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
     private static class Config {
         private String apiKey = "";
         private boolean autoRefresh = true;
         private int refreshIntervalMinutes = 5;
+        private int maxConcurrentRequests = 4;
+        private int requestsPerMinute = 250;
+        private int maxRetriesPerPage = 5;
+        private String retentionMode = "all";
+        private int retentionLimit = 64;
+        private int calculationThreads = 0;
     }
 }
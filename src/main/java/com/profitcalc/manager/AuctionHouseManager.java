@@ -2,7 +2,12 @@ package com.profitcalc.manager;
 
 import com.profitcalc.api.DonutSMPApiClient;
 import com.profitcalc.api.model.AuctionResponse;
+import com.profitcalc.config.ConfigManager;
 import com.profitcalc.model.AuctionItem;
+import com.profitcalc.model.AuctionSnapshot;
+import com.profitcalc.model.ItemListings;
+import com.profitcalc.model.RetentionPolicy;
+import com.profitcalc.model.SellerDictionary;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.registry.Registries;
@@ -12,31 +17,66 @@ import org.slf4j.LoggerFactory;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 public class AuctionHouseManager {
     private static final Logger LOGGER = LoggerFactory.getLogger("ProfitCalc/AuctionHouse");
     private static final AuctionHouseManager INSTANCE = new AuctionHouseManager();
 
-    private final Map<Item, List<AuctionItem>> auctionData = new ConcurrentHashMap<>();
+    // Read without locking; replaced only under this, together with the expiry buckets that track it
+    private final AtomicReference<AuctionSnapshot> snapshot = new AtomicReference<>(AuctionSnapshot.EMPTY);
+    private final AtomicLong versionCounter = new AtomicLong();
     private final long CACHE_DURATION = 5 * 60 * 1000; // 5 minutes
-    private long lastApiRefresh = 0;
-    private boolean isRefreshing = false;
-
-    private AuctionHouseManager() {}
+    private static final long EXPIRY_TICK_MS = 1000;
+    private final ExpiryBuckets expiry = new ExpiryBuckets(EXPIRY_TICK_MS);
+    private final SellerDictionary sellers = new SellerDictionary();
+    private final ScheduledExecutorService expiryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ProfitCalc-Expiry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Written on the fetch thread, read on the client and render threads
+    private volatile long lastApiRefresh = 0;
+    private volatile boolean isRefreshing = false;
+    private volatile PendingRefresh pendingRefresh;
+    // Chat listings still within their lifetime, oldest first. A refresh stages its snapshot from the
+    // API alone, so the ones seen while it ran are replayed onto it before the swap. Guarded by this.
+    private final Deque<ChatListing> chatListings = new ArrayDeque<>();
+    private final List<Consumer<AuctionSnapshot>> snapshotListeners = new CopyOnWriteArrayList<>();
+
+    private AuctionHouseManager() {
+        // Eviction runs here on its own tick, so reads never pay for it
+        expiryExecutor.scheduleWithFixedDelay(this::expireDueListings, EXPIRY_TICK_MS, EXPIRY_TICK_MS, TimeUnit.MILLISECONDS);
+    }
 
     public static AuctionHouseManager getInstance() {
         return INSTANCE;
     }
 
     public void addAuctionItem(ItemStack itemStack, double price, String seller) {
-        AuctionItem auctionItem = new AuctionItem(itemStack, price, seller);
+        long now = System.currentTimeMillis();
         Item item = itemStack.getItem();
+        int sellerCode = sellers.encode(seller);
 
-        auctionData.computeIfAbsent(item, k -> new ArrayList<>()).add(auctionItem);
+        RetentionPolicy retention = getRetentionPolicy();
+        synchronized (this) {
+            while (!chatListings.isEmpty() && chatListings.peekFirst().expiresAt <= now) {
+                chatListings.pollFirst();
+            }
+            chatListings.addLast(new ChatListing(item, price, itemStack.getCount(), sellerCode, now, now + CACHE_DURATION));
+            snapshot.set(snapshot.get().withListing(item, sellers, retention, price, itemStack.getCount(),
+                    sellerCode, now, now + CACHE_DURATION, versionCounter.incrementAndGet()));
+            expiry.add(Registries.ITEM.getRawId(item), now + CACHE_DURATION);
+        }
 
         LOGGER.info("Added auction item: {} at ${} from {}",
-                   auctionItem.getDisplayName(), price, seller);
+                   itemStack.getName().getString(), price, seller);
     }
 
     public void addAuctionItem(String itemName, double price, String seller) {
@@ -49,48 +89,112 @@ public class AuctionHouseManager {
         }
     }
 
-    public Optional<Double> getLowestPrice(Item item) {
-        cleanOldEntries();
-        List<AuctionItem> items = auctionData.get(item);
-        if (items == null || items.isEmpty()) {
-            return Optional.empty();
-        }
+    // Read on every ingest so a config change applies from the next listing or refresh
+    public RetentionPolicy getRetentionPolicy() {
+        ConfigManager config = ConfigManager.getInstance();
+        return RetentionPolicy.of(config.getRetentionMode(), config.getRetentionLimit());
+    }
 
-        return items.stream()
-                .mapToDouble(AuctionItem::getPrice)
-                .min()
-                .stream().boxed().findFirst();
+    // Called with each snapshot a refresh or cache clear publishes, on the publishing thread
+    public void addSnapshotListener(Consumer<AuctionSnapshot> listener) {
+        snapshotListeners.add(listener);
     }
 
-    public Optional<Double> getAveragePrice(Item item) {
-        cleanOldEntries();
-        List<AuctionItem> items = auctionData.get(item);
-        if (items == null || items.isEmpty()) {
-            return Optional.empty();
-        }
+    public AuctionSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    public Optional<Double> getLowestPrice(Item item) {
+        ItemListings listings = getSnapshot().getItemListings(item);
+        return listings.isEmpty() ? Optional.empty() : Optional.of(listings.getMin());
+    }
 
-        return items.stream()
-                .mapToDouble(AuctionItem::getPrice)
-                .average()
-                .stream().boxed().findFirst();
+    public Optional<Double> getAveragePrice(Item item) {
+        ItemListings listings = getSnapshot().getItemListings(item);
+        return listings.isEmpty() ? Optional.empty() : Optional.of(listings.getAverage());
     }
 
     public List<AuctionItem> getAuctionItems(Item item) {
-        cleanOldEntries();
-        List<AuctionItem> items = auctionData.get(item);
-        return items != null ? new ArrayList<>(items) : new ArrayList<>();
+        return new ArrayList<>(getSnapshot().getListings(item));
     }
 
     public void clearCache() {
-        auctionData.clear();
+        synchronized (this) {
+            chatListings.clear();
+        }
+        publish(new AuctionSnapshot.Builder(sellers).build(versionCounter.incrementAndGet(), false), Long.MAX_VALUE);
         LOGGER.info("Cleared auction house cache");
     }
 
-    private void cleanOldEntries() {
-        long currentTime = System.currentTimeMillis();
-        auctionData.values().forEach(list ->
-            list.removeIf(item -> currentTime - item.getTimestamp() > CACHE_DURATION)
-        );
+    private void expireDueListings() {
+        try {
+            long now = System.currentTimeMillis();
+            BitSet due = expiry.pollDue(now);
+            if (due.isEmpty()) {
+                return;
+            }
+
+            AuctionSnapshot before;
+            AuctionSnapshot after;
+            synchronized (this) {
+                before = snapshot.get();
+                // A version is only taken when something actually expired
+                after = before.withoutExpired(due, now, versionCounter.get() + 1);
+                if (after != before) {
+                    versionCounter.incrementAndGet();
+                    snapshot.set(after);
+                }
+            }
+            if (after != before) {
+                LOGGER.debug("Expired {} listings across {} items",
+                        before.getTotalListings() - after.getTotalListings(), due.cardinality());
+            }
+        } catch (Exception e) {
+            LOGGER.error("Error expiring auction listings: {}", e.getMessage());
+        }
+    }
+
+    // Replays the chat listings seen since the given time, unless the built snapshot already has them,
+    // then swaps and rebuilds the expiry buckets under the same lock addAuctionItem takes, so no chat
+    // listing slips between the two or loses its bucket
+    private void publish(AuctionSnapshot built, long chatSince) {
+        AuctionSnapshot next = built;
+        int replayed = 0;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            RetentionPolicy retention = getRetentionPolicy();
+            for (ChatListing listing : chatListings) {
+                if (listing.timestamp < chatSince || listing.expiresAt <= now
+                        || next.getItemListings(listing.item).contains(listing.price, listing.count, listing.sellerCode)) {
+                    continue;
+                }
+                next = next.withListing(listing.item, sellers, retention, listing.price, listing.count,
+                        listing.sellerCode, listing.timestamp, listing.expiresAt, versionCounter.incrementAndGet());
+                replayed++;
+            }
+            snapshot.set(next);
+            expiry.clear();
+            for (Item item : next.getItems()) {
+                ItemListings listings = next.getItemListings(item);
+                int rawId = Registries.ITEM.getRawId(item);
+                for (int i = 0; i < listings.size(); i++) {
+                    expiry.add(rawId, listings.expiresAt(i));
+                }
+            }
+        }
+        if (replayed > 0) {
+            LOGGER.debug("Kept {} chat listings added during the refresh", replayed);
+        }
+        LOGGER.info("Published auction snapshot v{} with {} listings{}",
+                next.getVersion(), next.getTotalListings(), next.isComplete() ? "" : " (partial)");
+
+        for (Consumer<AuctionSnapshot> listener : snapshotListeners) {
+            try {
+                listener.accept(next);
+            } catch (Exception e) {
+                LOGGER.error("Snapshot listener failed: {}", e.getMessage());
+            }
+        }
     }
 
     private Optional<Item> getItemByName(String name) {
@@ -115,20 +219,7 @@ public class AuctionHouseManager {
     }
 
     public Map<Item, Double> getAllLowestPrices() {
-        cleanOldEntries();
-        Map<Item, Double> prices = new HashMap<>();
-
-        auctionData.forEach((item, auctionItems) -> {
-            if (!auctionItems.isEmpty()) {
-                double lowest = auctionItems.stream()
-                        .mapToDouble(AuctionItem::getPrice)
-                        .min()
-                        .orElse(0);
-                prices.put(item, lowest);
-            }
-        });
-
-        return prices;
+        return getSnapshot().getLowestPrices();
     }
 
     public CompletableFuture<Boolean> refreshFromApi() {
@@ -140,22 +231,47 @@ public class AuctionHouseManager {
         isRefreshing = true;
         LOGGER.info("Starting API refresh...");
 
-        return DonutSMPApiClient.getInstance().fetchAllAuctions()
-                .thenApply(entries -> {
-                    clearCache();
-                    int loaded = 0;
+        // Pick up where an interrupted refresh stopped, unless its pages are already stale
+        long now = System.currentTimeMillis();
+        PendingRefresh refresh = pendingRefresh != null && now - pendingRefresh.startedAt < CACHE_DURATION
+                ? pendingRefresh
+                : new PendingRefresh(now, sellers, getRetentionPolicy());
+        if (refresh.nextPage > 1) {
+            LOGGER.info("Resuming interrupted refresh from page {}", refresh.nextPage);
+        }
+        if (refresh.retention.isBounded()) {
+            LOGGER.info("Retaining the {} per item", refresh.retention);
+        }
 
-                    for (AuctionResponse.AuctionEntry entry : entries) {
-                        if (loadAuctionEntry(entry)) {
-                            loaded++;
+        // Entries are converted as they stream in, so raw API objects never pile up
+        return DonutSMPApiClient.getInstance().fetchAllAuctions(refresh.nextPage, entry -> {
+                    if (loadAuctionEntry(entry, refresh.staging)) {
+                        refresh.loaded++;
+                    }
+                })
+                .thenApply(result -> {
+                    refresh.nextPage = result.getLastCompletedPage() + 1;
+
+                    // Freezing the staged listings happens here, on the fetch thread, before the swap
+                    if (result.isComplete()) {
+                        publish(refresh.staging.build(versionCounter.incrementAndGet(), true), refresh.startedAt);
+                        pendingRefresh = null;
+                        lastApiRefresh = System.currentTimeMillis();
+                        LOGGER.info("Loaded {} auction entries from API", refresh.loaded);
+                    } else {
+                        pendingRefresh = refresh;
+                        // A partial market beats an empty one, but never replace a complete snapshot with it
+                        AuctionSnapshot current = snapshot.get();
+                        if (current.isEmpty() || !current.isComplete()) {
+                            publish(refresh.staging.build(versionCounter.incrementAndGet(), false), refresh.startedAt);
+                            lastApiRefresh = System.currentTimeMillis();
                         }
+                        LOGGER.warn("Refresh stopped after page {} with {} entries; next refresh resumes from page {}",
+                                result.getLastCompletedPage(), refresh.loaded, refresh.nextPage);
                     }
 
-                    lastApiRefresh = System.currentTimeMillis();
                     isRefreshing = false;
-
-                    LOGGER.info("Loaded {} auction entries from API", loaded);
-                    return loaded > 0;
+                    return result.isComplete() && refresh.loaded > 0;
                 })
                 .exceptionally(e -> {
                     LOGGER.error("Error refreshing from API: {}", e.getMessage());
@@ -164,7 +280,7 @@ public class AuctionHouseManager {
                 });
     }
 
-    private boolean loadAuctionEntry(AuctionResponse.AuctionEntry entry) {
+    private boolean loadAuctionEntry(AuctionResponse.AuctionEntry entry, AuctionSnapshot.Builder staging) {
         try {
             AuctionResponse.ItemData itemData = entry.getItem();
             if (itemData == null || itemData.getId() == null) {
@@ -178,11 +294,13 @@ public class AuctionHouseManager {
             }
 
             Item item = Registries.ITEM.get(itemId);
-            ItemStack stack = new ItemStack(item, itemData.getCount());
 
             String seller = entry.getSeller() != null ? entry.getSeller().getName() : "Unknown";
-            addAuctionItem(stack, entry.getPrice(), seller);
 
+            // A listing leaves the cache when it goes stale or when its auction ends, whichever is first
+            long now = System.currentTimeMillis();
+            long lifetime = entry.getTimeLeft() > 0 ? Math.min(entry.getTimeLeft(), CACHE_DURATION) : CACHE_DURATION;
+            staging.add(item, entry.getPrice(), itemData.getCount(), seller, now, now + lifetime);
             return true;
 
         } catch (Exception e) {
@@ -195,6 +313,16 @@ public class AuctionHouseManager {
         return isRefreshing;
     }
 
+    public boolean isSnapshotComplete() {
+        return snapshot.get().isComplete();
+    }
+
+    // Page the next refresh starts from, or 0 when there is nothing to resume
+    public int getResumePage() {
+        PendingRefresh refresh = pendingRefresh;
+        return refresh != null ? refresh.nextPage : 0;
+    }
+
     public long getTimeSinceLastRefresh() {
         return System.currentTimeMillis() - lastApiRefresh;
     }
@@ -204,8 +332,38 @@ public class AuctionHouseManager {
     }
 
     public int getTotalItems() {
-        return auctionData.values().stream()
-                .mapToInt(List::size)
-                .sum();
+        return snapshot.get().getTotalListings();
+    }
+
+    private static class ChatListing {
+        private final Item item;
+        private final double price;
+        private final int count;
+        private final int sellerCode;
+        private final long timestamp;
+        private final long expiresAt;
+
+        ChatListing(Item item, double price, int count, int sellerCode, long timestamp, long expiresAt) {
+            this.item = item;
+            this.price = price;
+            this.count = count;
+            this.sellerCode = sellerCode;
+            this.timestamp = timestamp;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class PendingRefresh {
+        private final AuctionSnapshot.Builder staging;
+        private final RetentionPolicy retention;
+        private final long startedAt;
+        private int nextPage = 1;
+        private int loaded = 0;
+
+        PendingRefresh(long startedAt, SellerDictionary sellers, RetentionPolicy retention) {
+            this.startedAt = startedAt;
+            this.retention = retention;
+            this.staging = new AuctionSnapshot.Builder(sellers, retention);
+        }
     }
 }
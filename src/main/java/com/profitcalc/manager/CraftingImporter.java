@@ -0,0 +1,82 @@
+package com.profitcalc.manager;
+
+import com.profitcalc.model.CraftingRecipe;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.recipe.Ingredient;
+import net.minecraft.recipe.RecipeType;
+import net.minecraft.recipe.ShapedRecipe;
+import net.minecraft.recipe.ShapelessRecipe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Shaped and shapeless crafting table recipes
+public class CraftingImporter implements RecipeImporter {
+    private static final Logger LOGGER = LoggerFactory.getLogger("ProfitCalc/Recipe");
+
+    private final RecipeIntrospector introspector;
+
+    public CraftingImporter(RecipeIntrospector introspector) {
+        this.introspector = introspector;
+    }
+
+    @Override
+    public String getName() {
+        return "crafting";
+    }
+
+    @Override
+    public RecipeType<?> getType() {
+        return RecipeType.CRAFTING;
+    }
+
+    @Override
+    public CraftingRecipe convert(Object recipe) {
+        if (!(recipe instanceof net.minecraft.recipe.CraftingRecipe craftingRecipe)) {
+            return null;
+        }
+        try {
+            // Get recipe result - use craft() method or result field
+            ItemStack output = craftingRecipe.craft(null, null);
+            if (output == null || output.isEmpty()) {
+                return null;
+            }
+
+            CraftingRecipe customRecipe = new CraftingRecipe(output.getItem(), output.getCount());
+
+            // Slots that accept the same items are merged into one ingredient
+            Map<List<Item>, Integer> ingredientCounts = new LinkedHashMap<>();
+            if (craftingRecipe instanceof ShapedRecipe shapedRecipe) {
+                // getIngredients() returns Optional<Ingredient> in 1.21.10
+                for (Optional<Ingredient> optionalIngredient : shapedRecipe.getIngredients()) {
+                    optionalIngredient.ifPresent(ingredient -> count(ingredient, ingredientCounts));
+                }
+            } else if (craftingRecipe instanceof ShapelessRecipe shapelessRecipe) {
+                // Use reflection to get ingredients
+                for (Ingredient ingredient : introspector.getIngredients(shapelessRecipe)) {
+                    count(ingredient, ingredientCounts);
+                }
+            }
+            ingredientCounts.forEach(customRecipe::addIngredient);
+
+            return customRecipe;
+
+        } catch (Exception e) {
+            LOGGER.warn("Failed to convert crafting recipe: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // An ingredient that accepts nothing, such as an empty slot before 1.21.2, has no alternatives
+    private void count(Ingredient ingredient, Map<List<Item>, Integer> ingredientCounts) {
+        List<Item> alternatives = introspector.getAlternatives(ingredient);
+        if (!alternatives.isEmpty()) {
+            ingredientCounts.merge(alternatives, 1, Integer::sum);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.profitcalc.manager;
+
+import java.util.BitSet;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Items grouped into fixed-width time buckets by the expiry of their listings. An expiry pass
+// detaches only the buckets whose window has closed, so it visits only items with listings due.
+public class ExpiryBuckets {
+    private final long bucketMillis;
+    private final TreeMap<Long, BitSet> buckets = new TreeMap<>();
+
+    public ExpiryBuckets(long bucketMillis) {
+        this.bucketMillis = Math.max(1, bucketMillis);
+    }
+
+    public synchronized void add(int itemRawId, long expiresAt) {
+        if (expiresAt == Long.MAX_VALUE) {
+            return;
+        }
+        // Round up so a listing is never dropped before its own deadline
+        long bucket = Math.floorDiv(expiresAt + bucketMillis - 1, bucketMillis);
+        buckets.computeIfAbsent(bucket, k -> new BitSet()).set(itemRawId);
+    }
+
+    public synchronized void clear() {
+        buckets.clear();
+    }
+
+    // Raw ids of every item that has at least one listing due by now
+    public synchronized BitSet pollDue(long now) {
+        NavigableMap<Long, BitSet> due = buckets.headMap(Math.floorDiv(now, bucketMillis), true);
+        BitSet items = new BitSet();
+        for (BitSet bucket : due.values()) {
+            items.or(bucket);
+        }
+        due.clear();
+        return items;
+    }
+}
@@ -0,0 +1,191 @@
+package com.profitcalc.manager;
+
+import com.profitcalc.model.CraftingRecipe;
+import com.profitcalc.model.RecipeIngredient;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+// The converted recipe set on disk, so the calculator has recipes before a world is joined. The file
+// is keyed by the Minecraft version and the RecipeFingerprint of the vanilla entries it was converted
+// from. Items are stored as identifiers in a table, since raw ids change with the mod set, and recipes
+// as int indices into it.
+//
+// Layout: magic, format, game version, fingerprint, item table, then per recipe the output index,
+// output quantity, ingredient count and per ingredient its quantity, alternative count and item
+// indices. Strings are a short length and UTF-8.
+public class RecipeCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger("ProfitCalc/RecipeCache");
+    private static final int MAGIC = 0x50435249; // "PCRI"
+    private static final int FORMAT = 4;
+
+    private final Path file;
+
+    public RecipeCache(Path file) {
+        this.file = file;
+    }
+
+    public static String gameVersion() {
+        return FabricLoader.getInstance().getModContainer("minecraft")
+                .map(container -> container.getMetadata().getVersion().getFriendlyString())
+                .orElse("unknown");
+    }
+
+    // The stored recipes, or empty when there is no file, it is for another version or fingerprint
+    // (null matches any fingerprint), or it cannot be read
+    public Optional<Stored> read(String gameVersion, Long fingerprint) {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try {
+            // Read whole rather than mapped: a live mapping keeps the file open on Windows until the
+            // buffer is collected, and the atomic replace in write would fail against it. The file is
+            // small and read once per start, so the copy costs no more than setting up a mapping.
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT || !gameVersion.equals(readString(buffer))) {
+                return Optional.empty();
+            }
+            long stored = buffer.getLong();
+            if (fingerprint != null && stored != fingerprint) {
+                return Optional.empty();
+            }
+
+            Item[] items = new Item[buffer.getInt()];
+            for (int i = 0; i < items.length; i++) {
+                Identifier id = Identifier.tryParse(readString(buffer));
+                items[i] = id != null && Registries.ITEM.containsId(id) ? Registries.ITEM.get(id) : null;
+            }
+
+            int count = buffer.getInt();
+            List<CraftingRecipe> recipes = new ArrayList<>(count);
+            int skipped = 0;
+            for (int r = 0; r < count; r++) {
+                Item output = items[buffer.getInt()];
+                CraftingRecipe recipe = new CraftingRecipe(output, buffer.getInt());
+                boolean known = output != null;
+                int ingredients = buffer.getInt();
+                for (int i = 0; i < ingredients; i++) {
+                    int quantity = buffer.getInt();
+                    List<Item> alternatives = new ArrayList<>();
+                    for (int a = buffer.getInt(); a > 0; a--) {
+                        Item item = items[buffer.getInt()];
+                        if (item != null) {
+                            alternatives.add(item);
+                        }
+                    }
+                    if (alternatives.isEmpty()) {
+                        known = false;
+                    } else {
+                        recipe.addIngredient(alternatives, quantity);
+                    }
+                }
+                // A slot none of whose items exist any more makes the whole recipe meaningless
+                if (known) {
+                    recipes.add(recipe);
+                } else {
+                    skipped++;
+                }
+            }
+            if (skipped > 0) {
+                LOGGER.warn("Skipped {} cached recipes with unknown items", skipped);
+            }
+            return Optional.of(new Stored(stored, recipes));
+        } catch (IOException | RuntimeException e) {
+            // A truncated or corrupt file fails anywhere in here, as an underflow, a bad index or a
+            // negative count; none of them may stop the import
+            LOGGER.warn("Ignoring unreadable recipe cache {}: {}", file, e.toString());
+            return Optional.empty();
+        }
+    }
+
+    // Written to a temporary file and moved into place, so a crash never leaves half a cache
+    public void write(String gameVersion, long fingerprint, List<CraftingRecipe> recipes) {
+        Map<Item, Integer> itemIndex = new LinkedHashMap<>();
+        for (CraftingRecipe recipe : recipes) {
+            itemIndex.putIfAbsent(recipe.getOutput(), itemIndex.size());
+            for (RecipeIngredient ingredient : recipe.getIngredients()) {
+                for (Item alternative : ingredient.getAlternatives()) {
+                    itemIndex.putIfAbsent(alternative, itemIndex.size());
+                }
+            }
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                writeString(out, gameVersion);
+                out.writeLong(fingerprint);
+
+                out.writeInt(itemIndex.size());
+                for (Item item : itemIndex.keySet()) {
+                    writeString(out, String.valueOf(Registries.ITEM.getId(item)));
+                }
+
+                out.writeInt(recipes.size());
+                for (CraftingRecipe recipe : recipes) {
+                    List<RecipeIngredient> ingredients = recipe.getIngredients();
+                    out.writeInt(itemIndex.get(recipe.getOutput()));
+                    out.writeInt(recipe.getOutputQuantity());
+                    out.writeInt(ingredients.size());
+                    for (RecipeIngredient ingredient : ingredients) {
+                        out.writeInt(ingredient.getQuantity());
+                        out.writeInt(ingredient.getAlternatives().size());
+                        for (Item alternative : ingredient.getAlternatives()) {
+                            out.writeInt(itemIndex.get(alternative));
+                        }
+                    }
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.debug("Cached {} recipes to {}", recipes.size(), file);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write recipe cache {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static class Stored {
+        private final long fingerprint;
+        private final List<CraftingRecipe> recipes;
+
+        private Stored(long fingerprint, List<CraftingRecipe> recipes) {
+            this.fingerprint = fingerprint;
+            this.recipes = recipes;
+        }
+
+        public long getFingerprint() {
+            return fingerprint;
+        }
+
+        public List<CraftingRecipe> getRecipes() {
+            return recipes;
+        }
+    }
+}
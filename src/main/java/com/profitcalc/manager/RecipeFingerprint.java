@@ -0,0 +1,190 @@
+package com.profitcalc.manager;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.recipe.Ingredient;
+import net.minecraft.recipe.RecipeEntry;
+import net.minecraft.registry.Registries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// Fingerprint of the vanilla recipe entries an import would convert, taken before any importer runs.
+// Each entry hashes its id and the recipe's final fields: items by identifier, stacks as item and
+// count, ingredients as the items they accept, and anything else by walking its own final fields a
+// few levels deep. Non-final fields are skipped, since recipes fill lazy caches there. Entries are
+// summed after mixing, so the order the game's maps hand them out in doesn't matter.
+public class RecipeFingerprint {
+    private static final Logger LOGGER = LoggerFactory.getLogger("ProfitCalc/RecipeCache");
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+    // Plain objects nested deeper than this only contribute their class name
+    private static final int MAX_DEPTH = 4;
+
+    private final RecipeIntrospector introspector;
+    private final ClassValue<MethodHandle[]> fields = new ClassValue<>() {
+        @Override
+        protected MethodHandle[] computeValue(Class<?> type) {
+            return finalFields(type);
+        }
+    };
+
+    public RecipeFingerprint(RecipeIntrospector introspector) {
+        this.introspector = introspector;
+    }
+
+    // The importer names are folded in, so registering another importer changes the fingerprint
+    public long of(List<String> importers, List<? extends Collection<? extends RecipeEntry<?>>> entries) {
+        long hash = importers.size();
+        for (String importer : importers) {
+            hash += mix(hash(FNV_OFFSET, importer));
+        }
+        for (Collection<? extends RecipeEntry<?>> batch : entries) {
+            for (RecipeEntry<?> entry : batch) {
+                hash += mix(hashEntry(String.valueOf(entry.id()), entry.value()));
+            }
+        }
+        return hash;
+    }
+
+    long hashEntry(String id, Object recipe) {
+        return hashValue(hash(FNV_OFFSET, id), recipe, 0);
+    }
+
+    private long hashValue(long hash, Object value, int depth) {
+        if (value == null) {
+            return hash(hash, 0);
+        }
+        if (value instanceof Optional<?> optional) {
+            return hashValue(hash(hash, 1), optional.orElse(null), depth);
+        }
+        if (value instanceof CharSequence || value instanceof Number || value instanceof Boolean
+                || value instanceof Character) {
+            return hash(hash, value.toString());
+        }
+        if (value instanceof Enum<?> constant) {
+            return hash(hash, constant.name());
+        }
+        if (value instanceof Item item) {
+            return hash(hash, itemId(item));
+        }
+        if (value instanceof ItemStack stack) {
+            return stack.isEmpty() ? hash(hash, 0) : hash(hash(hash, itemId(stack.getItem())), stack.getCount());
+        }
+        if (value instanceof Ingredient ingredient) {
+            List<Item> alternatives = introspector.getAlternatives(ingredient);
+            hash = hash(hash, alternatives.size());
+            for (Item alternative : alternatives) {
+                hash = hash(hash, itemId(alternative));
+            }
+            return hash;
+        }
+        // Sets and maps may iterate in a different order every session; their members are summed
+        if (value instanceof Set<?> set) {
+            long sum = set.size();
+            for (Object member : set) {
+                sum += mix(hashValue(FNV_OFFSET, member, depth));
+            }
+            return hash(hash, Long.hashCode(sum));
+        }
+        if (value instanceof Map<?, ?> map) {
+            long sum = map.size();
+            for (Map.Entry<?, ?> mapping : map.entrySet()) {
+                sum += mix(hashValue(hashValue(FNV_OFFSET, mapping.getKey(), depth), mapping.getValue(), depth));
+            }
+            return hash(hash, Long.hashCode(sum));
+        }
+        if (value instanceof Iterable<?> iterable) {
+            for (Object member : iterable) {
+                hash = hashValue(hash, member, depth);
+            }
+            return hash;
+        }
+        if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            hash = hash(hash, length);
+            for (int i = 0; i < length; i++) {
+                hash = hashValue(hash, Array.get(value, i), depth);
+            }
+            return hash;
+        }
+
+        Class<?> type = value.getClass();
+        // Hidden classes, such as lambdas, are named differently every session
+        if (type.isHidden()) {
+            return hash(hash, 0);
+        }
+        hash = hash(hash, type.getName());
+        if (depth >= MAX_DEPTH) {
+            return hash;
+        }
+        for (MethodHandle getter : fields.get(type)) {
+            try {
+                hash = hashValue(hash, (Object) getter.invokeExact(value), depth + 1);
+            } catch (Throwable t) {
+                hash = hash(hash, 0);
+            }
+        }
+        return hash;
+    }
+
+    // Final instance fields from the class up to, but excluding, Object; fields the module system
+    // won't open are left out
+    private static MethodHandle[] finalFields(Class<?> type) {
+        List<MethodHandle> getters = new ArrayList<>();
+        for (Class<?> owner = type; owner != null && owner != Object.class; owner = owner.getSuperclass()) {
+            for (Field field : owner.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || !Modifier.isFinal(modifiers)) {
+                    continue;
+                }
+                try {
+                    field.setAccessible(true);
+                    getters.add(MethodHandles.lookup().unreflectGetter(field).asType(GETTER));
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    LOGGER.debug("Not fingerprinting {}.{}: {}", owner.getSimpleName(), field.getName(), e.getMessage());
+                }
+            }
+        }
+        return getters.toArray(new MethodHandle[0]);
+    }
+
+    private static long hash(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return hash(hash, value.length());
+    }
+
+    private static long hash(long hash, int value) {
+        for (int shift = 0; shift < 32; shift += 8) {
+            hash = (hash ^ ((value >>> shift) & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    // The identifier, unlike the raw id, is the same in every session
+    private static String itemId(Item item) {
+        return String.valueOf(Registries.ITEM.getId(item));
+    }
+
+    private static long mix(long value) {
+        // SplitMix64 finalizer, so summed hashes do not cancel out
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
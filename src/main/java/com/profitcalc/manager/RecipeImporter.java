@@ -0,0 +1,16 @@
+package com.profitcalc.manager;
+
+import com.profitcalc.model.CraftingRecipe;
+import net.minecraft.recipe.RecipeType;
+
+// Turns the game's recipes of one type into priced recipes. RecipeManager runs every registered
+// importer concurrently on its import pool, and an importer may be called from several threads.
+public interface RecipeImporter {
+    // Short name for logs, e.g. "crafting"
+    String getName();
+
+    RecipeType<?> getType();
+
+    // The recipe as a priced recipe, or null when it is not this importer's kind or has no fixed output
+    CraftingRecipe convert(Object recipe);
+}
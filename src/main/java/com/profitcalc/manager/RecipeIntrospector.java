@@ -0,0 +1,256 @@
+package com.profitcalc.manager;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.recipe.Ingredient;
+import net.minecraft.recipe.Recipe;
+import net.minecraft.recipe.RecipeEntry;
+import net.minecraft.recipe.RecipeType;
+import net.minecraft.recipe.ShapelessRecipe;
+import net.minecraft.recipe.SmithingTransformRecipe;
+import net.minecraft.registry.entry.RegistryEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// Reads recipe internals whose accessors differ between mappings and versions. Each accessor is
+// resolved once per concrete class by trying its candidate methods and fields in order, without
+// throwing, and the first match is kept as a MethodHandle. Later calls are a single invoke.
+// Members holding an Optional are unwrapped.
+public class RecipeIntrospector {
+    private static final Logger LOGGER = LoggerFactory.getLogger("ProfitCalc/Introspect");
+    private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+
+    private final AccessorCache recipes = new AccessorCache("recipes", Map.class, false,
+            field("recipes"));
+    // 1.21.2 and later list an ingredient's items as registry entries, as a stream or a list depending
+    // on the version; older versions kept an array of stacks
+    private final AccessorCache matchingItems = new AccessorCache("matching items", Object.class, false,
+            method("getMatchingItems"), field("entries"), method("getMatchingStacks"), field("matchingStacks"));
+    private final AccessorCache shapelessIngredients = new AccessorCache("shapeless ingredients", List.class, false,
+            method("getInput"), method("getIngredients"), field("input"));
+    // Cooking and stonecutting recipes; getIngredients() returns a list whose first entry is the input
+    private final AccessorCache singleIngredient = new AccessorCache("single ingredient", Ingredient.class, true,
+            method("getInput"), method("getIngredients"), field("input"), method("ingredient"), field("ingredient"));
+    // Smithing slots; template and addition may be optional
+    private final AccessorCache smithingTemplate = new AccessorCache("smithing template", Ingredient.class, false,
+            method("template"), field("template"));
+    private final AccessorCache smithingBase = new AccessorCache("smithing base", Ingredient.class, false,
+            method("base"), field("base"));
+    private final AccessorCache smithingAddition = new AccessorCache("smithing addition", Ingredient.class, false,
+            method("addition"), field("addition"));
+    // An ItemStack before 1.21.5, then a transmute result holding an item entry and a count
+    private final AccessorCache smithingResult = new AccessorCache("smithing result", Object.class, false,
+            method("getResult"), field("result"));
+    private final AccessorCache resultItem = new AccessorCache("result item", Object.class, false,
+            method("item"), field("item"));
+    private final AccessorCache resultCount = new AccessorCache("result count", Object.class, false,
+            method("count"), field("count"));
+
+    @SuppressWarnings("unchecked")
+    public Map<RecipeType<?>, Map<?, RecipeEntry<?>>> getRecipes(net.minecraft.recipe.RecipeManager recipeManager) {
+        return (Map<RecipeType<?>, Map<?, RecipeEntry<?>>>) recipes.read(recipeManager);
+    }
+
+
+    // Empty when the ingredients cannot be read
+    @SuppressWarnings("unchecked")
+    public List<Ingredient> getIngredients(ShapelessRecipe recipe) {
+        List<Ingredient> ingredients = (List<Ingredient>) shapelessIngredients.read(recipe);
+        return ingredients != null ? ingredients : List.of();
+    }
+
+    // Every distinct item an ingredient accepts, in the order the game lists them; empty when they
+    // cannot be read
+    public List<Item> getAlternatives(Ingredient ingredient) {
+        Object matching = matchingItems.read(ingredient);
+        Iterator<?> members;
+        if (matching instanceof Stream<?> stream) {
+            members = stream.iterator();
+        } else if (matching instanceof Iterable<?> iterable) {
+            members = iterable.iterator();
+        } else if (matching instanceof Object[] array) {
+            members = Arrays.asList(array).iterator();
+        } else {
+            return List.of();
+        }
+
+        List<Item> alternatives = new ArrayList<>();
+        while (members.hasNext()) {
+            Item item = toItem(members.next());
+            if (item != null && !alternatives.contains(item)) {
+                alternatives.add(item);
+            }
+        }
+        return alternatives;
+    }
+
+    // Input of a one-ingredient recipe (smelting, blasting, smoking, stonecutting); null when it cannot be read
+    public Ingredient getIngredient(Recipe<?> recipe) {
+        return (Ingredient) singleIngredient.read(recipe);
+    }
+
+    // Template, base and addition, skipping empty slots; empty when none can be read
+    public List<Ingredient> getSmithingIngredients(SmithingTransformRecipe recipe) {
+        List<Ingredient> ingredients = new ArrayList<>(3);
+        for (AccessorCache slot : List.of(smithingTemplate, smithingBase, smithingAddition)) {
+            Ingredient ingredient = (Ingredient) slot.read(recipe);
+            if (ingredient != null) {
+                ingredients.add(ingredient);
+            }
+        }
+        return ingredients;
+    }
+
+    // Null when the result cannot be read
+    public ItemStack getSmithingResult(SmithingTransformRecipe recipe) {
+        Object result = smithingResult.read(recipe);
+        if (result == null || result instanceof ItemStack) {
+            return (ItemStack) result;
+        }
+        Item item = toItem(resultItem.read(result));
+        Object count = resultCount.read(result);
+        return item != null && count instanceof Number number ? new ItemStack(item, number.intValue()) : null;
+    }
+
+    // An item, its registry entry or a non-empty stack of it; null for anything else
+    private static Item toItem(Object value) {
+        if (value instanceof RegistryEntry<?> entry) {
+            value = entry.value();
+        }
+        if (value instanceof ItemStack stack) {
+            value = stack.isEmpty() ? null : stack.getItem();
+        }
+        return value instanceof Item item ? item : null;
+    }
+
+    private static Candidate method(String name) {
+        return new Candidate(name, false);
+    }
+
+    private static Candidate field(String name) {
+        return new Candidate(name, true);
+    }
+
+    private static class Candidate {
+        private final String name;
+        private final boolean isField;
+
+        Candidate(String name, boolean isField) {
+            this.name = name;
+            this.isField = isField;
+        }
+    }
+
+    // One resolved accessor; handle is null when no candidate matched
+    private static class Accessor {
+        private final MethodHandle handle;
+        private final boolean firstOfList;
+
+        Accessor(MethodHandle handle, boolean firstOfList) {
+            this.handle = handle;
+            this.firstOfList = firstOfList;
+        }
+    }
+
+    private static class AccessorCache extends ClassValue<Accessor> {
+        private final String description;
+        private final Class<?> resultType;
+        // Also accept a list whose first element has the result type
+        private final boolean allowList;
+        private final Candidate[] candidates;
+
+        AccessorCache(String description, Class<?> resultType, boolean allowList, Candidate... candidates) {
+            this.description = description;
+            this.resultType = resultType;
+            this.allowList = allowList;
+            this.candidates = candidates;
+        }
+
+        Object read(Object target) {
+            Accessor accessor = get(target.getClass());
+            if (accessor.handle == null) {
+                return null;
+            }
+            try {
+                Object value = (Object) accessor.handle.invokeExact(target);
+                if (accessor.firstOfList) {
+                    List<?> list = (List<?>) value;
+                    value = list.isEmpty() ? null : list.get(0);
+                }
+                if (value instanceof Optional<?> optional) {
+                    value = optional.orElse(null);
+                }
+                return resultType.isInstance(value) ? value : null;
+            } catch (Throwable t) {
+                LOGGER.warn("Failed to read {}: {}", description, t.getMessage());
+                return null;
+            }
+        }
+
+        @Override
+        protected Accessor computeValue(Class<?> type) {
+            for (Candidate candidate : candidates) {
+                try {
+                    Accessor accessor = candidate.isField ? resolveField(type, candidate.name) : resolveMethod(type, candidate.name);
+                    if (accessor != null) {
+                        LOGGER.info("Reading {} of {} through {} {}", description, type.getSimpleName(),
+                                candidate.isField ? "field" : "method", candidate.name);
+                        return accessor;
+                    }
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    LOGGER.debug("Cannot use {} for {}: {}", candidate.name, description, e.getMessage());
+                }
+            }
+            LOGGER.warn("No accessor for {} of {}", description, type.getName());
+            return new Accessor(null, false);
+        }
+
+        // The member holds the result directly, boxed, or as an Optional
+        private boolean accepts(Class<?> type) {
+            Class<?> boxed = MethodType.methodType(type).wrap().returnType();
+            return resultType.isAssignableFrom(boxed) || type == Optional.class;
+        }
+
+        private Accessor resolveMethod(Class<?> type, String name) throws IllegalAccessException {
+            for (Method method : type.getMethods()) {
+                if (!method.getName().equals(name) || method.getParameterCount() != 0
+                        || Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                boolean direct = accepts(method.getReturnType());
+                if (direct || (allowList && List.class.isAssignableFrom(method.getReturnType()))) {
+                    method.setAccessible(true); // Public methods can still sit on a non-public class
+                    return new Accessor(MethodHandles.lookup().unreflect(method).asType(GETTER), !direct);
+                }
+            }
+            return null;
+        }
+
+        private Accessor resolveField(Class<?> type, String name) throws IllegalAccessException {
+            for (Class<?> owner = type; owner != null; owner = owner.getSuperclass()) {
+                for (Field field : owner.getDeclaredFields()) {
+                    if (field.getName().equals(name) && !Modifier.isStatic(field.getModifiers())
+                            && accepts(field.getType())) {
+                        field.setAccessible(true);
+                        return new Accessor(MethodHandles.lookup().unreflectGetter(field).asType(GETTER), false);
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -1,237 +1,179 @@
 package com.profitcalc.manager;
 
+import com.profitcalc.model.AuctionSnapshot;
 import com.profitcalc.model.CraftingRecipe;
+import com.profitcalc.model.RecipeIndex;
+import com.profitcalc.model.RecipeMatrix;
 import net.minecraft.item.Item;
-import net.minecraft.item.ItemStack;
 import net.minecraft.recipe.*;
-import net.minecraft.registry.Registries;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Field;
+import java.nio.file.Paths;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class RecipeManager {
     private static final Logger LOGGER = LoggerFactory.getLogger("ProfitCalc/Recipe");
     private static final RecipeManager INSTANCE = new RecipeManager();
 
-    private final Map<Item, List<CraftingRecipe>> recipesByOutput = new ConcurrentHashMap<>();
-
-    private RecipeManager() {}
+    // The published recipe set; replaced whole, never modified
+    private final AtomicReference<RecipeIndex> index = new AtomicReference<>(RecipeIndex.empty());
+    // Bumped whenever the recipe set changes, so cached results know to start over
+    private final AtomicLong recipeVersion = new AtomicLong();
+    // Only the newest import may publish; an older one that finishes late is dropped
+    private final AtomicLong importGeneration = new AtomicLong();
+    private final RecipeIntrospector introspector = new RecipeIntrospector();
+    private final RecipeFingerprint fingerprinter = new RecipeFingerprint(introspector);
+    private final RecipeCache cache = new RecipeCache(Paths.get("config", "profit-calc-recipes.bin"));
+    // Fingerprint of the vanilla entries behind the published index; 0 before any import
+    private volatile long loadedFingerprint;
+    // Run in registration order, which is also the order their recipes are indexed in
+    private final List<RecipeImporter> importers = new CopyOnWriteArrayList<>();
+    private ForkJoinPool importPool;
+
+    private RecipeManager() {
+        importers.add(new CraftingImporter(introspector));
+        importers.add(new SingleInputImporter("smelting", RecipeType.SMELTING, SmeltingRecipe.class, introspector));
+        importers.add(new SingleInputImporter("blasting", RecipeType.BLASTING, BlastingRecipe.class, introspector));
+        importers.add(new SingleInputImporter("smoking", RecipeType.SMOKING, SmokingRecipe.class, introspector));
+        importers.add(new SingleInputImporter("stonecutting", RecipeType.STONECUTTING, StonecuttingRecipe.class, introspector));
+        importers.add(new SmithingImporter(introspector));
+    }
 
     public static RecipeManager getInstance() {
         return INSTANCE;
     }
 
-    @SuppressWarnings("unchecked")
-    public void loadRecipes(net.minecraft.recipe.RecipeManager minecraftRecipeManager) {
-        recipesByOutput.clear();
-        int count = 0;
-
-        // Access recipes through reflection
-        try {
-            Field recipesField = net.minecraft.recipe.RecipeManager.class.getDeclaredField("recipes");
-            recipesField.setAccessible(true);
-            Map<RecipeType<?>, Map<?, RecipeEntry<?>>> allRecipes =
-                (Map<RecipeType<?>, Map<?, RecipeEntry<?>>>) recipesField.get(minecraftRecipeManager);
-
-            // Load crafting recipes
-            Map<?, RecipeEntry<?>> craftingRecipes = allRecipes.get(RecipeType.CRAFTING);
-            if (craftingRecipes != null) {
-                for (RecipeEntry<?> entry : craftingRecipes.values()) {
-                    if (entry.value() instanceof net.minecraft.recipe.CraftingRecipe craftingRecipe) {
-                        CraftingRecipe customRecipe = convertCraftingRecipe(craftingRecipe);
-                        if (customRecipe != null) {
-                            Item output = customRecipe.getOutput();
-                            recipesByOutput.computeIfAbsent(output, k -> new ArrayList<>()).add(customRecipe);
-                            count++;
-                        }
-                    }
-                }
-            }
-
-            // Load smelting recipes
-            Map<?, RecipeEntry<?>> smeltingRecipes = allRecipes.get(RecipeType.SMELTING);
-            if (smeltingRecipes != null) {
-                for (RecipeEntry<?> entry : smeltingRecipes.values()) {
-                    if (entry.value() instanceof SmeltingRecipe smeltingRecipe) {
-                        CraftingRecipe customRecipe = convertSmeltingRecipe(smeltingRecipe);
-                        if (customRecipe != null) {
-                            Item output = customRecipe.getOutput();
-                            recipesByOutput.computeIfAbsent(output, k -> new ArrayList<>()).add(customRecipe);
-                            count++;
-                        }
-                    }
-                }
+    // Publishes the recipes cached by the previous session, so the calculator works before a world is
+    // joined. A join whose recipe entries have the same fingerprint then keeps this index.
+    public CompletableFuture<RecipeIndex> loadCachedRecipes() {
+        long generation = importGeneration.incrementAndGet();
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            Optional<RecipeCache.Stored> stored = cache.read(RecipeCache.gameVersion(), null);
+            if (stored.isEmpty()) {
+                return index.get();
             }
-        } catch (Exception e) {
-            LOGGER.error("Failed to load recipes: {}", e.getMessage(), e);
-        }
-
-        LOGGER.info("Loaded {} recipes", count);
+            RecipeIndex published = publish(generation, stored.get().getRecipes(), stored.get().getFingerprint());
+            LOGGER.info("Loaded {} cached recipes in {} ms", stored.get().getRecipes().size(),
+                    (System.nanoTime() - start) / 1_000_000);
+            return published;
+        }, getImportPool()).exceptionally(e -> {
+            LOGGER.warn("Failed to load cached recipes: {}", e.getMessage());
+            return index.get();
+        });
     }
 
-    private CraftingRecipe convertCraftingRecipe(net.minecraft.recipe.CraftingRecipe recipe) {
+    // Copies and fingerprints the vanilla recipe entries on the calling thread. Entries equal to the
+    // ones behind the published index keep it without running any importer, so cached results stay
+    // valid. Otherwise every importer converts its entries at once on the import pool, so joining a
+    // world never waits on it, and the result is published and cached for next time. Completes with
+    // the index in effect once the import is done.
+    public CompletableFuture<RecipeIndex> loadRecipes(net.minecraft.recipe.RecipeManager minecraftRecipeManager) {
+        long start = System.nanoTime();
+        List<Batch> batches = new ArrayList<>();
+        long fingerprint;
         try {
-            // Get recipe result - use craft() method or result field
-            ItemStack output = recipe.craft(null, null);
-            if (output == null || output.isEmpty()) {
-                return null;
+            // Access recipes through reflection
+            Map<RecipeType<?>, Map<?, RecipeEntry<?>>> allRecipes = introspector.getRecipes(minecraftRecipeManager);
+            if (allRecipes == null) {
+                throw new IllegalStateException("recipe map is not accessible");
             }
-
-            CraftingRecipe customRecipe = new CraftingRecipe(output.getItem(), output.getCount());
-
-            // Process ingredients
-            if (recipe instanceof ShapedRecipe shapedRecipe) {
-                Map<Item, Integer> ingredientCounts = new HashMap<>();
-
-                // getIngredients() returns Optional<Ingredient> in 1.21.10
-                for (Optional<Ingredient> optionalIngredient : shapedRecipe.getIngredients()) {
-                    if (optionalIngredient.isPresent()) {
-                        Ingredient ingredient = optionalIngredient.get();
-                        if (!ingredient.isEmpty()) {
-                            // Use reflection to get matching stacks
-                            ItemStack[] stacks = getMatchingStacksReflection(ingredient);
-                            if (stacks != null && stacks.length > 0) {
-                                Item item = stacks[0].getItem();
-                                ingredientCounts.merge(item, 1, Integer::sum);
-                            }
-                        }
-                    }
-                }
-
-                ingredientCounts.forEach(customRecipe::addIngredient);
-
-            } else if (recipe instanceof ShapelessRecipe shapelessRecipe) {
-                Map<Item, Integer> ingredientCounts = new HashMap<>();
-
-                // Use reflection to get ingredients
-                List<Ingredient> ingredients = getIngredientsReflection(shapelessRecipe);
-                for (Ingredient ingredient : ingredients) {
-                    if (!ingredient.isEmpty()) {
-                        ItemStack[] stacks = getMatchingStacksReflection(ingredient);
-                        if (stacks != null && stacks.length > 0) {
-                            Item item = stacks[0].getItem();
-                            ingredientCounts.merge(item, 1, Integer::sum);
-                        }
-                    }
-                }
-
-                ingredientCounts.forEach(customRecipe::addIngredient);
+            for (RecipeImporter importer : importers) {
+                Map<?, RecipeEntry<?>> recipes = allRecipes.get(importer.getType());
+                List<RecipeEntry<?>> batch = recipes != null ? new ArrayList<>(recipes.values()) : List.of();
+                batches.add(new Batch(importer, batch));
             }
-
-            return customRecipe;
-
+            fingerprint = fingerprint(batches);
         } catch (Exception e) {
-            LOGGER.warn("Failed to convert crafting recipe: {}", e.getMessage());
-            return null;
+            // Keeps whatever is published, such as the recipes from the disk cache, and every result built on it
+            LOGGER.error("Failed to load recipes: {}", e.getMessage(), e);
+            return CompletableFuture.completedFuture(index.get());
         }
-    }
-
-    private CraftingRecipe convertSmeltingRecipe(SmeltingRecipe recipe) {
-        try {
-            // Get recipe result
-            ItemStack output = recipe.craft(null, null);
-            if (output == null || output.isEmpty()) {
-                return null;
-            }
-
-            CraftingRecipe customRecipe = new CraftingRecipe(output.getItem(), output.getCount());
-
-            // Get ingredient using reflection
-            Ingredient ingredient = getIngredientReflection(recipe);
-            if (ingredient != null && !ingredient.isEmpty()) {
-                ItemStack[] stacks = getMatchingStacksReflection(ingredient);
-                if (stacks != null && stacks.length > 0) {
-                    customRecipe.addIngredient(stacks[0].getItem(), 1);
-                }
+        if (fingerprint == loadedFingerprint) {
+            LOGGER.info("Recipes unchanged, keeping the {} loaded (checked in {} ms)", index.get().size(),
+                    (System.nanoTime() - start) / 1_000_000);
+            return CompletableFuture.completedFuture(index.get());
+        }
+        // Taken only once there is something to publish, so a failed read never supersedes the cache load
+        long generation = importGeneration.incrementAndGet();
+
+        // One task per importer, each converting its entries with a parallel stream on the pool. They
+        // are combined by a task queued once all have finished, never joined from a pool task while
+        // still running, which would park a worker the conversions may need.
+        List<CompletableFuture<Batch>> running = new ArrayList<>();
+        for (Batch batch : batches) {
+            running.add(CompletableFuture.supplyAsync(batch::run, getImportPool()));
+        }
+        return CompletableFuture.allOf(running.toArray(new CompletableFuture<?>[0])).thenApplyAsync(done -> {
+            List<CraftingRecipe> converted = new ArrayList<>();
+            StringJoiner timings = new StringJoiner(", ");
+            for (CompletableFuture<Batch> future : running) {
+                Batch batch = future.join(); // Already complete
+                converted.addAll(batch.converted);
+                timings.add(batch.importer.getName() + " " + batch.converted.size() + " in " + batch.millis + " ms");
             }
 
-            return customRecipe;
+            RecipeIndex published = publish(generation, converted, fingerprint);
+            LOGGER.info("Loaded {} recipes in {} ms ({})", converted.size(),
+                    (System.nanoTime() - start) / 1_000_000, timings);
+            cache.write(RecipeCache.gameVersion(), fingerprint, converted);
+            return published;
+        }, getImportPool()).exceptionally(e -> {
+            LOGGER.error("Failed to load recipes: {}", e.getMessage(), e);
+            return index.get();
+        });
+    }
 
-        } catch (Exception e) {
-            LOGGER.warn("Failed to convert smelting recipe: {}", e.getMessage());
-            return null;
-        }
+    // Adds an importer for another recipe type; it takes part from the next loadRecipes on
+    public void registerImporter(RecipeImporter importer) {
+        importers.add(importer);
+        LOGGER.info("Registered {} recipe importer", importer.getName());
     }
 
-    // Helper method to get matching stacks using reflection
-    private ItemStack[] getMatchingStacksReflection(Ingredient ingredient) {
-        try {
-            // Try getMatchingStacks() first
-            try {
-                var method = Ingredient.class.getMethod("getMatchingStacks");
-                return (ItemStack[]) method.invoke(ingredient);
-            } catch (NoSuchMethodException e) {
-                // Try accessing the field directly
-                Field matchingStacksField = Ingredient.class.getDeclaredField("matchingStacks");
-                matchingStacksField.setAccessible(true);
-                return (ItemStack[]) matchingStacksField.get(ingredient);
-            }
-        } catch (Exception e) {
-            LOGGER.warn("Failed to get matching stacks: {}", e.getMessage());
-            return new ItemStack[0];
+    private long fingerprint(List<Batch> batches) {
+        List<String> names = new ArrayList<>(batches.size());
+        List<List<RecipeEntry<?>>> entries = new ArrayList<>(batches.size());
+        for (Batch batch : batches) {
+            names.add(batch.importer.getName());
+            entries.add(batch.entries);
         }
+        return fingerprinter.of(names, entries);
     }
 
-    // Helper method to get ingredients from ShapelessRecipe using reflection
-    @SuppressWarnings("unchecked")
-    private List<Ingredient> getIngredientsReflection(ShapelessRecipe recipe) {
-        try {
-            // Try getInput() first
-            try {
-                var method = ShapelessRecipe.class.getMethod("getInput");
-                return (List<Ingredient>) method.invoke(recipe);
-            } catch (NoSuchMethodException e) {
-                // Try getIngredients()
-                try {
-                    var method = ShapelessRecipe.class.getMethod("getIngredients");
-                    return (List<Ingredient>) method.invoke(recipe);
-                } catch (NoSuchMethodException e2) {
-                    // Try accessing field directly
-                    Field inputField = ShapelessRecipe.class.getDeclaredField("input");
-                    inputField.setAccessible(true);
-                    return (List<Ingredient>) inputField.get(recipe);
-                }
-            }
-        } catch (Exception e) {
-            LOGGER.warn("Failed to get ingredients from shapeless recipe: {}", e.getMessage());
-            return new ArrayList<>();
+    private synchronized RecipeIndex publish(long generation, List<CraftingRecipe> recipes, long fingerprint) {
+        if (generation != importGeneration.get()) {
+            LOGGER.debug("Dropping recipe import {}, superseded by a newer one", generation);
+            return index.get();
         }
+        RecipeIndex next = RecipeIndex.of(recipeVersion.incrementAndGet(), recipes);
+        index.set(next);
+        loadedFingerprint = fingerprint;
+        return next;
     }
 
-    // Helper method to get ingredient from SmeltingRecipe using reflection
-    private Ingredient getIngredientReflection(SmeltingRecipe recipe) {
-        try {
-            // Try getInput() first
-            try {
-                var method = SmeltingRecipe.class.getMethod("getInput");
-                return (Ingredient) method.invoke(recipe);
-            } catch (NoSuchMethodException e) {
-                // Try getIngredients()
-                try {
-                    var method = SmeltingRecipe.class.getMethod("getIngredients");
-                    List<?> ingredients = (List<?>) method.invoke(recipe);
-                    if (!ingredients.isEmpty()) {
-                        return (Ingredient) ingredients.get(0);
-                    }
-                } catch (NoSuchMethodException e2) {
-                    // Try accessing field directly
-                    Field inputField = SmeltingRecipe.class.getDeclaredField("input");
-                    inputField.setAccessible(true);
-                    return (Ingredient) inputField.get(recipe);
-                }
-            }
-        } catch (Exception e) {
-            LOGGER.warn("Failed to get ingredient from smelting recipe: {}", e.getMessage());
+    private synchronized ForkJoinPool getImportPool() {
+        if (importPool == null) {
+            // Leave a core for the render thread
+            int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            importPool = new ForkJoinPool(threads, forkJoinPool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                thread.setName("ProfitCalc-RecipeImport-" + thread.getPoolIndex());
+                return thread;
+            }, null, false);
         }
-        return null;
+        return importPool;
     }
 
-    public Optional<CraftingRecipe> getCheapestRecipe(Item item, Map<Item, Double> prices) {
-        List<CraftingRecipe> recipes = recipesByOutput.get(item);
-        if (recipes == null || recipes.isEmpty()) {
+    public Optional<CraftingRecipe> getCheapestRecipe(Item item, AuctionSnapshot market) {
+        List<CraftingRecipe> recipes = index.get().getRecipes(item);
+        if (recipes.isEmpty()) {
             return Optional.empty();
         }
 
@@ -239,7 +181,7 @@ public class RecipeManager {
         double lowestCost = Double.MAX_VALUE;
 
         for (CraftingRecipe recipe : recipes) {
-            double cost = calculateRecipeCost(recipe, prices);
+            double cost = calculateRecipeCost(recipe, market);
             if (cost >= 0 && cost < lowestCost) {
                 lowestCost = cost;
                 cheapest = recipe;
@@ -249,36 +191,91 @@ public class RecipeManager {
         return Optional.ofNullable(cheapest);
     }
 
+    // The current recipe set; every read through it sees the same version
+    public RecipeIndex getRecipeIndex() {
+        return index.get();
+    }
+
+    // Every output that has at least one recipe, with its recipes; read-only
+    public Map<Item, List<CraftingRecipe>> getRecipesByOutput() {
+        return index.get().getRecipesByOutput();
+    }
+
+    public List<CraftingRecipe> getRecipesUsing(Item ingredient) {
+        return new ArrayList<>(index.get().getRecipesUsing(ingredient));
+    }
+
+    // Recipes compiled for costing; compiled once per recipe set
+    public RecipeMatrix getRecipeMatrix() {
+        return index.get().getMatrix();
+    }
+
+    public long getRecipeVersion() {
+        return index.get().getVersion();
+    }
+
     public List<CraftingRecipe> getRecipes(Item item) {
-        return new ArrayList<>(recipesByOutput.getOrDefault(item, new ArrayList<>()));
+        return new ArrayList<>(index.get().getRecipes(item));
     }
 
-    public double calculateRecipeCost(CraftingRecipe recipe, Map<Item, Double> prices) {
+    public double calculateRecipeCost(CraftingRecipe recipe, AuctionSnapshot market) {
         double totalCost = 0;
 
         for (var ingredient : recipe.getIngredients()) {
-            Item item = ingredient.getItem();
-            int quantity = ingredient.getQuantity();
-
-            if (!prices.containsKey(item)) {
-                return -1; // Can't calculate cost without price data
+            // Walk the order book instead of multiplying the floor price, so thin markets cost what they really cost.
+            // An any-of slot takes the cheapest accepted item with enough units listed.
+            double cost = -1;
+            for (Item alternative : ingredient.getAlternatives()) {
+                double alternativeCost = market.getItemListings(alternative).costForUnits(ingredient.getQuantity());
+                if (alternativeCost >= 0 && (cost < 0 || alternativeCost < cost)) {
+                    cost = alternativeCost;
+                }
+            }
+            if (cost < 0) {
+                return -1; // Missing price data or not enough units listed
             }
 
-            totalCost += prices.get(item) * quantity;
+            totalCost += cost;
         }
 
         return totalCost;
     }
 
     public boolean hasRecipe(Item item) {
-        return recipesByOutput.containsKey(item);
+        return index.get().hasRecipe(item);
     }
 
     public void addCustomRecipe(Item output, int outputQuantity, Map<Item, Integer> ingredients) {
         CraftingRecipe recipe = new CraftingRecipe(output, outputQuantity);
         ingredients.forEach(recipe::addIngredient);
 
-        recipesByOutput.computeIfAbsent(output, k -> new ArrayList<>()).add(recipe);
+        synchronized (this) {
+            index.set(index.get().with(recipe, recipeVersion.incrementAndGet()));
+        }
         LOGGER.info("Added custom recipe for {}", output);
     }
+
+    // One importer's share of an import: its entries in, its recipes and timing out
+    private static class Batch {
+        private final RecipeImporter importer;
+        private final List<RecipeEntry<?>> entries;
+        private List<CraftingRecipe> converted = List.of();
+        private long millis;
+
+        Batch(RecipeImporter importer, List<RecipeEntry<?>> entries) {
+            this.importer = importer;
+            this.entries = entries;
+        }
+
+        Batch run() {
+            long start = System.nanoTime();
+            // Parallel streams started on a pool worker run on that pool
+            converted = entries.parallelStream()
+                    .map(entry -> importer.convert(entry.value()))
+                    .filter(Objects::nonNull)
+                    .toList();
+            millis = (System.nanoTime() - start) / 1_000_000;
+            return this;
+        }
+    }
 }
@@ -0,0 +1,73 @@
+package com.profitcalc.manager;
+
+import com.profitcalc.model.CraftingRecipe;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.recipe.Ingredient;
+import net.minecraft.recipe.Recipe;
+import net.minecraft.recipe.RecipeType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+// Recipes that turn one input item into a fixed output: smelting, blasting, smoking and stonecutting.
+// Stonecutting matters most here, since it converts blocks one to one (or one to two) without a table.
+public class SingleInputImporter implements RecipeImporter {
+    private static final Logger LOGGER = LoggerFactory.getLogger("ProfitCalc/Recipe");
+
+    private final String name;
+    private final RecipeType<?> type;
+    private final Class<?> recipeClass;
+    private final RecipeIntrospector introspector;
+
+    public SingleInputImporter(String name, RecipeType<?> type, Class<?> recipeClass, RecipeIntrospector introspector) {
+        this.name = name;
+        this.type = type;
+        this.recipeClass = recipeClass;
+        this.introspector = introspector;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public RecipeType<?> getType() {
+        return type;
+    }
+
+    @Override
+    public CraftingRecipe convert(Object recipe) {
+        if (!recipeClass.isInstance(recipe)) {
+            return null;
+        }
+        Recipe<?> singleInput = (Recipe<?>) recipe;
+        try {
+            // Get recipe result
+            ItemStack output = singleInput.craft(null, null);
+            if (output == null || output.isEmpty()) {
+                return null;
+            }
+
+            // Get ingredient using reflection
+            Ingredient ingredient = introspector.getIngredient(singleInput);
+            if (ingredient == null) {
+                return null;
+            }
+            List<Item> alternatives = introspector.getAlternatives(ingredient);
+            if (alternatives.isEmpty()) {
+                return null;
+            }
+
+            CraftingRecipe customRecipe = new CraftingRecipe(output.getItem(), output.getCount());
+            customRecipe.addIngredient(alternatives, 1);
+            return customRecipe;
+
+        } catch (Exception e) {
+            LOGGER.warn("Failed to convert {} recipe: {}", name, e.getMessage());
+            return null;
+        }
+    }
+}
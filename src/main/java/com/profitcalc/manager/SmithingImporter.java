@@ -0,0 +1,61 @@
+package com.profitcalc.manager;
+
+import com.profitcalc.model.CraftingRecipe;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.recipe.Ingredient;
+import net.minecraft.recipe.RecipeType;
+import net.minecraft.recipe.SmithingTransformRecipe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+// Smithing table upgrades: template, base and addition into the result. Trim recipes keep the base
+// item and only change its looks, so they are not worth pricing and are skipped.
+public class SmithingImporter implements RecipeImporter {
+    private static final Logger LOGGER = LoggerFactory.getLogger("ProfitCalc/Recipe");
+
+    private final RecipeIntrospector introspector;
+
+    public SmithingImporter(RecipeIntrospector introspector) {
+        this.introspector = introspector;
+    }
+
+    @Override
+    public String getName() {
+        return "smithing";
+    }
+
+    @Override
+    public RecipeType<?> getType() {
+        return RecipeType.SMITHING;
+    }
+
+    @Override
+    public CraftingRecipe convert(Object recipe) {
+        if (!(recipe instanceof SmithingTransformRecipe transformRecipe)) {
+            return null;
+        }
+        try {
+            // craft() needs the actual base stack, so the result is read instead
+            ItemStack output = introspector.getSmithingResult(transformRecipe);
+            if (output == null || output.isEmpty()) {
+                return null;
+            }
+
+            CraftingRecipe customRecipe = new CraftingRecipe(output.getItem(), output.getCount());
+            for (Ingredient ingredient : introspector.getSmithingIngredients(transformRecipe)) {
+                List<Item> alternatives = introspector.getAlternatives(ingredient);
+                if (!alternatives.isEmpty()) {
+                    customRecipe.addIngredient(alternatives, 1);
+                }
+            }
+            return customRecipe.getIngredients().isEmpty() ? null : customRecipe;
+
+        } catch (Exception e) {
+            LOGGER.warn("Failed to convert smithing recipe: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -8,12 +8,18 @@ public class AuctionItem {
     private final double price;
     private final String sellerName;
     private final long timestamp;
+    private final long expiresAt;
 
     public AuctionItem(ItemStack itemStack, double price, String sellerName) {
+        this(itemStack, price, sellerName, System.currentTimeMillis(), Long.MAX_VALUE);
+    }
+
+    public AuctionItem(ItemStack itemStack, double price, String sellerName, long timestamp, long expiresAt) {
         this.itemStack = itemStack;
         this.price = price;
         this.sellerName = sellerName;
-        this.timestamp = System.currentTimeMillis();
+        this.timestamp = timestamp;
+        this.expiresAt = expiresAt;
     }
 
     public ItemStack getItemStack() {
@@ -36,6 +42,10 @@ public class AuctionItem {
         return timestamp;
     }
 
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
     public String getDisplayName() {
         return itemStack.getName().getString();
     }
@@ -0,0 +1,233 @@
+package com.profitcalc.model;
+
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Immutable view of the market at one point in time. Refreshes build a new one and publish it
+// with a single reference swap, so readers never observe a half-loaded market.
+// Listings live in per-item column blocks indexed by the item's raw registry id.
+public class AuctionSnapshot {
+    public static final AuctionSnapshot EMPTY = new AuctionSnapshot(0, 0, false, new ItemListings[0], 0);
+
+    private final long version;
+    private final long createdAt;
+    private final boolean complete;
+    private final ItemListings[] byRawId;
+    private final int totalListings;
+    private volatile List<Item> items;
+    private volatile Map<Item, Double> lowestPrices;
+    private volatile PriceVector priceVector;
+
+    private AuctionSnapshot(long version, long createdAt, boolean complete, ItemListings[] byRawId, int totalListings) {
+        this.version = version;
+        this.createdAt = createdAt;
+        this.complete = complete;
+        this.byRawId = byRawId;
+        this.totalListings = totalListings;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public boolean isEmpty() {
+        return totalListings == 0;
+    }
+
+    public int getTotalListings() {
+        return totalListings;
+    }
+
+    public List<Item> getItems() {
+        List<Item> result = items;
+        if (result == null) {
+            List<Item> computed = new ArrayList<>();
+            for (ItemListings listings : byRawId) {
+                if (listings != null && !listings.isEmpty()) {
+                    computed.add(listings.getItem());
+                }
+            }
+            result = Collections.unmodifiableList(computed);
+            items = result;
+        }
+        return result;
+    }
+
+    public ItemListings getItemListings(Item item) {
+        return getItemListings(Registries.ITEM.getRawId(item));
+    }
+
+    public ItemListings getItemListings(int rawId) {
+        ItemListings listings = rawId >= 0 && rawId < byRawId.length ? byRawId[rawId] : null;
+        return listings != null ? listings : ItemListings.EMPTY;
+    }
+
+    public List<AuctionItem> getListings(Item item) {
+        return getItemListings(item).asList();
+    }
+
+    // Built once per snapshot; every later call is a field read
+    public Map<Item, Double> getLowestPrices() {
+        Map<Item, Double> prices = lowestPrices;
+        if (prices == null) {
+            Map<Item, Double> computed = new HashMap<>();
+            for (Item item : getItems()) {
+                computed.put(item, getItemListings(item).getMin());
+            }
+            prices = Collections.unmodifiableMap(computed);
+            lowestPrices = prices;
+        }
+        return prices;
+    }
+
+    // Items whose order book differs from the previous snapshot. Blocks shared between the two
+    // snapshots are skipped by identity, so a copy-on-write update costs only what it touched.
+    public Set<Item> changedSince(AuctionSnapshot previous) {
+        Set<Item> changed = new HashSet<>();
+        int length = Math.max(byRawId.length, previous.byRawId.length);
+        for (int rawId = 0; rawId < length; rawId++) {
+            ItemListings now = getItemListings(rawId);
+            ItemListings before = previous.getItemListings(rawId);
+            if (now != before && !now.hasSameBook(before)) {
+                changed.add(now.isEmpty() ? before.getItem() : now.getItem());
+            }
+        }
+        return changed;
+    }
+
+    // Dense floor prices for recipe costing, built once per snapshot. A snapshot derived by a chat
+    // listing or an expiry pass copies its parent's vector and patches only the items it touched.
+    public PriceVector getPriceVector() {
+        PriceVector prices = priceVector;
+        if (prices == null) {
+            prices = PriceVector.of(this);
+            priceVector = prices;
+        }
+        return prices;
+    }
+
+    public AuctionSnapshot withListing(Item item, SellerDictionary sellers, RetentionPolicy retention, double price,
+                                       int count, int sellerCode, long timestamp, long expiresAt, long newVersion) {
+        int rawId = Registries.ITEM.getRawId(item);
+        ItemListings[] copy = Arrays.copyOf(byRawId, Math.max(byRawId.length, rawId + 1));
+        ItemListings current = copy[rawId];
+        ItemListings updated = current != null && !current.isEmpty()
+                ? current.with(price, count, sellerCode, timestamp, expiresAt).retain(retention)
+                : new ItemListings.Builder(item, sellers, 1).add(price, count, sellerCode, timestamp, expiresAt).buildSorted();
+        copy[rawId] = updated;
+        int before = current != null ? current.size() : 0;
+        AuctionSnapshot next = new AuctionSnapshot(newVersion, System.currentTimeMillis(), complete, copy,
+                totalListings - before + updated.size());
+        BitSet changed = new BitSet();
+        changed.set(rawId);
+        next.derivePriceVector(this, changed);
+        return next;
+    }
+
+    // Rebuilds only the flagged items; every other item's column block is shared with this snapshot
+    public AuctionSnapshot withoutExpired(BitSet rawIds, long now, long newVersion) {
+        ItemListings[] copy = null;
+        BitSet changed = new BitSet();
+        int remaining = totalListings;
+
+        for (int rawId = rawIds.nextSetBit(0); rawId >= 0 && rawId < byRawId.length; rawId = rawIds.nextSetBit(rawId + 1)) {
+            ItemListings before = byRawId[rawId];
+            if (before == null) {
+                continue;
+            }
+            ItemListings after = before.withoutExpired(now);
+            if (after == before) {
+                continue;
+            }
+            if (copy == null) {
+                copy = byRawId.clone();
+            }
+            remaining -= before.size() - after.size();
+            copy[rawId] = after.isEmpty() ? null : after;
+            changed.set(rawId);
+        }
+
+        if (copy == null) {
+            return this;
+        }
+        AuctionSnapshot next = new AuctionSnapshot(newVersion, System.currentTimeMillis(), complete, copy, remaining);
+        next.derivePriceVector(this, changed);
+        return next;
+    }
+
+    // Only when the parent's vector exists; otherwise it is built from scratch on first use
+    private void derivePriceVector(AuctionSnapshot parent, BitSet changed) {
+        PriceVector parentPrices = parent.priceVector;
+        if (parentPrices != null) {
+            priceVector = parentPrices.with(this, changed);
+        }
+    }
+
+    public static class Builder {
+        private final SellerDictionary sellers;
+        private final RetentionPolicy retention;
+        private ItemListings.Builder[] byRawId = new ItemListings.Builder[0];
+
+        public Builder(SellerDictionary sellers) {
+            this(sellers, RetentionPolicy.ALL);
+        }
+
+        // Listings beyond the retention limit are dropped as they arrive, so staging memory stays capped too
+        public Builder(SellerDictionary sellers, RetentionPolicy retention) {
+            this.sellers = sellers;
+            this.retention = retention;
+        }
+
+        public Builder add(Item item, double price, int count, String seller, long timestamp, long expiresAt) {
+            int rawId = Registries.ITEM.getRawId(item);
+            if (rawId >= byRawId.length) {
+                byRawId = Arrays.copyOf(byRawId, Math.max(rawId + 1, Registries.ITEM.size()));
+            }
+            if (byRawId[rawId] == null) {
+                byRawId[rawId] = new ItemListings.Builder(item, sellers, 8, retention);
+            }
+            byRawId[rawId].add(price, count, sellers.encode(seller), timestamp, expiresAt);
+            return this;
+        }
+
+        public int size() {
+            int size = 0;
+            for (ItemListings.Builder listings : byRawId) {
+                if (listings != null) {
+                    size += listings.size();
+                }
+            }
+            return size;
+        }
+
+        public AuctionSnapshot build(long version, boolean complete) {
+            ItemListings[] frozen = new ItemListings[byRawId.length];
+            int size = 0;
+            for (int rawId = 0; rawId < byRawId.length; rawId++) {
+                if (byRawId[rawId] != null) {
+                    frozen[rawId] = byRawId[rawId].buildSorted();
+                    size += frozen[rawId].size();
+                }
+            }
+            return new AuctionSnapshot(version, System.currentTimeMillis(), complete, frozen, size);
+        }
+    }
+}
@@ -19,6 +19,15 @@ public class CraftingRecipe {
         ingredients.add(new RecipeIngredient(item, quantity));
     }
 
+    // A slot that accepts any of several items; a single alternative is a plain ingredient
+    public void addIngredient(List<Item> alternatives, int quantity) {
+        if (alternatives.size() == 1) {
+            addIngredient(alternatives.get(0), quantity);
+        } else {
+            ingredients.add(new RecipeIngredient(alternatives, quantity));
+        }
+    }
+
     public Item getOutput() {
         return output;
     }
@@ -0,0 +1,110 @@
+package com.profitcalc.model;
+
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+
+import java.util.Set;
+
+// Prices for the ingredient ids of one RecipeMatrix against one snapshot. A plain id is an item's
+// raw id and reads straight from the PriceVector. A negative id is a choice ("any planks"). Its floor
+// price is that of its lowest-floor listed member, kept per choice so reading it is one array read.
+// Buying n units of a choice takes whichever member fills them cheapest, which is only worth
+// searching for when the lowest-floor member has fewer than n units at its floor.
+// A new snapshot re-scans only the choices that contain an item whose listings changed.
+public class IngredientPrices {
+    private final RecipeMatrix matrix;
+    private final AuctionSnapshot market;
+    private final PriceVector prices;
+    // Raw id of the member with the lowest floor price per choice; the first member when none is listed
+    private final int[] cheapest;
+
+    private IngredientPrices(RecipeMatrix matrix, AuctionSnapshot market, int[] cheapest) {
+        this.matrix = matrix;
+        this.market = market;
+        this.prices = market.getPriceVector();
+        this.cheapest = cheapest;
+    }
+
+    static IngredientPrices of(RecipeMatrix matrix, AuctionSnapshot market) {
+        int[] cheapest = new int[matrix.choiceCount()];
+        PriceVector prices = market.getPriceVector();
+        for (int choice = 0; choice < cheapest.length; choice++) {
+            cheapest[choice] = findCheapest(matrix, choice, prices);
+        }
+        return new IngredientPrices(matrix, market, cheapest);
+    }
+
+    // Carries the minimum over from the previous snapshot and re-scans the choices a changed item belongs to
+    static IngredientPrices update(RecipeMatrix matrix, IngredientPrices previous, AuctionSnapshot market) {
+        int[] cheapest = previous.cheapest.clone();
+        PriceVector prices = market.getPriceVector();
+        Set<Item> changed = market.changedSince(previous.market);
+        for (Item item : changed) {
+            int rawId = Registries.ITEM.getRawId(item);
+            for (int i = matrix.firstChoiceOf(rawId), end = matrix.endChoiceOf(rawId); i < end; i++) {
+                int choice = matrix.choiceOfMember(i);
+                cheapest[choice] = findCheapest(matrix, choice, prices);
+            }
+        }
+        return new IngredientPrices(matrix, market, cheapest);
+    }
+
+    private static int findCheapest(RecipeMatrix matrix, int choice, PriceVector prices) {
+        int best = matrix.choiceMember(matrix.firstMember(choice));
+        double bestPrice = Double.MAX_VALUE;
+        for (int i = matrix.firstMember(choice), end = matrix.endMember(choice); i < end; i++) {
+            int rawId = matrix.choiceMember(i);
+            if (prices.isListed(rawId) && prices.floorPrice(rawId) < bestPrice) {
+                bestPrice = prices.floorPrice(rawId);
+                best = rawId;
+            }
+        }
+        return best;
+    }
+
+    public AuctionSnapshot getMarket() {
+        return market;
+    }
+
+    // The raw id an ingredient id is priced at by floor: the lowest-floor member for a choice
+    public int resolve(int ingredientId) {
+        return ingredientId >= 0 ? ingredientId : cheapest[-ingredientId - 1];
+    }
+
+    // The raw id n units of an ingredient id are bought as: the member with the cheapest fill for a
+    // choice, or its lowest-floor member when no member has n units listed. Listings are bought whole,
+    // so even a fill at the lowest floor can lose to a smaller listing of another member.
+    public int resolve(int ingredientId, int units) {
+        if (ingredientId >= 0) {
+            return ingredientId;
+        }
+        int choice = -ingredientId - 1;
+        int best = cheapest[choice];
+        double bestCost = Double.MAX_VALUE;
+        for (int i = matrix.firstMember(choice), end = matrix.endMember(choice); i < end; i++) {
+            int rawId = matrix.choiceMember(i);
+            if (!prices.isListed(rawId)) {
+                continue;
+            }
+            double cost = prices.costForUnits(rawId, units);
+            if (cost >= 0 && cost < bestCost) {
+                bestCost = cost;
+                best = rawId;
+            }
+        }
+        return best;
+    }
+
+    public boolean isListed(int ingredientId) {
+        return prices.isListed(resolve(ingredientId));
+    }
+
+    public double floorPrice(int ingredientId) {
+        return prices.floorPrice(resolve(ingredientId));
+    }
+
+    // Cost of the cheapest n units, or -1 when no book it can buy from is deep enough
+    public double costForUnits(int ingredientId, int units) {
+        return prices.costForUnits(resolve(ingredientId, units), units);
+    }
+}
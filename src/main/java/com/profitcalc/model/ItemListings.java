@@ -0,0 +1,546 @@
+package com.profitcalc.model;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+// All listings of one item stored column-wise in primitive arrays. Rows are sorted by unit price and
+// carry prefix sums of units and cost, so the block doubles as an order book: min, average, "cost of
+// the cheapest N units" and "units affordable for $X" are O(1) or O(log n). AuctionItem objects are
+// only materialized when a caller such as the GUI asks for them.
+public class ItemListings {
+    public static final ItemListings EMPTY = new ItemListings(null, null, 0, new double[0], new double[0],
+            new int[0], new int[0], new long[0], new long[0], new long[0], new double[0]);
+
+    private final Item item;
+    private final SellerDictionary sellers;
+    private final int size;
+    private final double[] prices;
+    private final double[] unitPrices;
+    private final int[] counts;
+    private final int[] sellerCodes;
+    private final long[] timestamps;
+    private final long[] expiresAt;
+    // cumulativeUnits[i] / cumulativeCost[i] cover rows 0..i inclusive
+    private final long[] cumulativeUnits;
+    private final double[] cumulativeCost;
+
+    private ItemListings(Item item, SellerDictionary sellers, int size, double[] prices, double[] unitPrices,
+                         int[] counts, int[] sellerCodes, long[] timestamps, long[] expiresAt,
+                         long[] cumulativeUnits, double[] cumulativeCost) {
+        this.item = item;
+        this.sellers = sellers;
+        this.size = size;
+        this.prices = prices;
+        this.unitPrices = unitPrices;
+        this.counts = counts;
+        this.sellerCodes = sellerCodes;
+        this.timestamps = timestamps;
+        this.expiresAt = expiresAt;
+        this.cumulativeUnits = cumulativeUnits;
+        this.cumulativeCost = cumulativeCost;
+    }
+
+    // Spliced in at its binary-searched rank, so nothing is re-sorted; the prefix sums before the
+    // new row are copied and only the ones from it onwards are recomputed
+    public ItemListings with(double price, int count, int sellerCode, long timestamp, long expiry) {
+        int units = Math.max(1, count);
+        int at = upperBound(price / units);
+        int next = size + 1;
+
+        double[] nextPrices = new double[next];
+        double[] nextUnitPrices = new double[next];
+        int[] nextCounts = new int[next];
+        int[] nextSellers = new int[next];
+        long[] nextTimestamps = new long[next];
+        long[] nextExpiry = new long[next];
+        splice(prices, nextPrices, at);
+        splice(unitPrices, nextUnitPrices, at);
+        splice(counts, nextCounts, at);
+        splice(sellerCodes, nextSellers, at);
+        splice(timestamps, nextTimestamps, at);
+        splice(expiresAt, nextExpiry, at);
+        nextPrices[at] = price;
+        nextUnitPrices[at] = price / units;
+        nextCounts[at] = units;
+        nextSellers[at] = sellerCode;
+        nextTimestamps[at] = timestamp;
+        nextExpiry[at] = expiry;
+
+        long[] nextCumulativeUnits = Arrays.copyOf(cumulativeUnits, next);
+        double[] nextCumulativeCost = Arrays.copyOf(cumulativeCost, next);
+        accumulate(nextPrices, nextCounts, nextCumulativeUnits, nextCumulativeCost, at, next);
+        return new ItemListings(item, sellers, next, nextPrices, nextUnitPrices, nextCounts, nextSellers,
+                nextTimestamps, nextExpiry, nextCumulativeUnits, nextCumulativeCost);
+    }
+
+    // Returns this same instance when nothing has expired, so unaffected snapshots keep sharing it.
+    // Otherwise a filtered copy: the survivors keep their order, so only the prefix sums are recomputed.
+    public ItemListings withoutExpired(long now) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (expiresAt[i] > now) {
+                kept++;
+            }
+        }
+
+        if (kept == size) {
+            return this;
+        } else if (kept == 0) {
+            return EMPTY;
+        }
+
+        double[] nextPrices = new double[kept];
+        double[] nextUnitPrices = new double[kept];
+        int[] nextCounts = new int[kept];
+        int[] nextSellers = new int[kept];
+        long[] nextTimestamps = new long[kept];
+        long[] nextExpiry = new long[kept];
+        for (int i = 0, j = 0; i < size; i++) {
+            if (expiresAt[i] > now) {
+                nextPrices[j] = prices[i];
+                nextUnitPrices[j] = unitPrices[i];
+                nextCounts[j] = counts[i];
+                nextSellers[j] = sellerCodes[i];
+                nextTimestamps[j] = timestamps[i];
+                nextExpiry[j++] = expiresAt[i];
+            }
+        }
+
+        long[] nextCumulativeUnits = new long[kept];
+        double[] nextCumulativeCost = new double[kept];
+        accumulate(nextPrices, nextCounts, nextCumulativeUnits, nextCumulativeCost, 0, kept);
+        return new ItemListings(item, sellers, kept, nextPrices, nextUnitPrices, nextCounts, nextSellers,
+                nextTimestamps, nextExpiry, nextCumulativeUnits, nextCumulativeCost);
+    }
+
+    // Copies source into target with a one-slot gap at the given index
+    private void splice(Object source, Object target, int at) {
+        System.arraycopy(source, 0, target, 0, at);
+        System.arraycopy(source, at, target, at + 1, size - at);
+    }
+
+    // Fills the prefix sums of rows from .. to, continuing from the sums before from
+    private static void accumulate(double[] prices, int[] counts, long[] cumulativeUnits, double[] cumulativeCost,
+                                   int from, int to) {
+        long units = from > 0 ? cumulativeUnits[from - 1] : 0;
+        double cost = from > 0 ? cumulativeCost[from - 1] : 0;
+        for (int i = from; i < to; i++) {
+            units += counts[i];
+            cost += prices[i];
+            cumulativeUnits[i] = units;
+            cumulativeCost[i] = cost;
+        }
+    }
+
+    // Rows are already sorted, so the cheapest listings or units are a prefix whose sums stay valid
+    public ItemListings retain(RetentionPolicy retention) {
+        int kept = switch (retention.getMode()) {
+            case ALL -> size;
+            case LISTINGS -> Math.min(size, retention.getLimit());
+            case UNITS -> retention.getLimit() >= getTotalUnits()
+                    ? size
+                    : firstIndexAtLeast(cumulativeUnits, retention.getLimit()) + 1;
+        };
+        if (kept == size) {
+            return this;
+        }
+        return new ItemListings(item, sellers, kept, Arrays.copyOf(prices, kept), Arrays.copyOf(unitPrices, kept),
+                Arrays.copyOf(counts, kept), Arrays.copyOf(sellerCodes, kept), Arrays.copyOf(timestamps, kept),
+                Arrays.copyOf(expiresAt, kept), Arrays.copyOf(cumulativeUnits, kept), Arrays.copyOf(cumulativeCost, kept));
+    }
+
+    // Same rows at the same unit prices, so every depth query answers the same
+    public boolean hasSameBook(ItemListings other) {
+        return size == other.size
+                && Arrays.equals(unitPrices, 0, size, other.unitPrices, 0, size)
+                && Arrays.equals(counts, 0, size, other.counts, 0, size);
+    }
+
+    public Item getItem() {
+        return item;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Lowest price per single unit
+    public double getMin() {
+        return unitPrices[0];
+    }
+
+    public double getMax() {
+        return unitPrices[size - 1];
+    }
+
+    public long getTotalUnits() {
+        return size == 0 ? 0 : cumulativeUnits[size - 1];
+    }
+
+    public double getTotalCost() {
+        return size == 0 ? 0 : cumulativeCost[size - 1];
+    }
+
+    // Volume-weighted average price per unit
+    public double getAverage() {
+        return getTotalCost() / getTotalUnits();
+    }
+
+    // Listing price of the row at the given rank, cheapest unit price first
+    public double priceAt(int rank) {
+        return prices[rank];
+    }
+
+    public double unitPriceAt(int rank) {
+        return unitPrices[rank];
+    }
+
+    public int countAt(int rank) {
+        return counts[rank];
+    }
+
+    public long expiresAt(int rank) {
+        return expiresAt[rank];
+    }
+
+    // Whether a row with exactly this price, count and seller is listed
+    public boolean contains(double price, int count, int sellerCode) {
+        int units = Math.max(1, count);
+        for (int i = upperBound(price / units) - 1; i >= 0 && unitPrices[i] == price / units; i--) {
+            if (prices[i] == price && counts[i] == units && sellerCodes[i] == sellerCode) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int countAtOrBelow(double unitPrice) {
+        return upperBound(unitPrice);
+    }
+
+    // Amount spent on the cheapest n units. Listings are bought whole, so the last one touched is paid
+    // in full; unitsObtained gives how many units that buys. Returns -1 when the book is too shallow.
+    public double costForUnits(long units) {
+        if (units <= 0) {
+            return 0;
+        }
+        if (units > getTotalUnits()) {
+            return -1;
+        }
+        return cumulativeCost[firstIndexAtLeast(cumulativeUnits, units)];
+    }
+
+    // Units actually bought by costForUnits(n): n plus whatever is left over from the last listing,
+    // or -1 when the book is too shallow
+    public long unitsObtained(long units) {
+        if (units <= 0) {
+            return 0;
+        }
+        if (units > getTotalUnits()) {
+            return -1;
+        }
+        return cumulativeUnits[firstIndexAtLeast(cumulativeUnits, units)];
+    }
+
+    // Most units purchasable for the given budget, buying whole listings cheapest first
+    public long unitsAffordable(double budget) {
+        if (size == 0 || budget <= 0) {
+            return 0;
+        }
+        if (budget >= getTotalCost()) {
+            return getTotalUnits();
+        }
+
+        int row = firstIndexAbove(cumulativeCost, budget);
+        return row > 0 ? cumulativeUnits[row - 1] : 0;
+    }
+
+    public AuctionItem get(int rank) {
+        return new AuctionItem(new ItemStack(item, counts[rank]), prices[rank],
+                sellers.decode(sellerCodes[rank]), timestamps[rank], expiresAt[rank]);
+    }
+
+    public List<AuctionItem> asList() {
+        return new AbstractList<>() {
+            @Override
+            public AuctionItem get(int index) {
+                return ItemListings.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int upperBound(double unitPrice) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (unitPrices[mid] <= unitPrice) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int firstIndexAtLeast(long[] sorted, long target) {
+        int lo = 0;
+        int hi = size - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] >= target) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    private int firstIndexAbove(double[] sorted, double target) {
+        int lo = 0;
+        int hi = size - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] > target) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    // Growable column set for bulk loads; buildSorted() orders rows by unit price and computes the prefix sums.
+    // Under a bounded retention policy the live rows also form a max-heap on unit price, so the
+    // priciest listing is evicted as soon as the cheaper ones satisfy the limit and its slot reused.
+    public static class Builder {
+        private final Item item;
+        private final SellerDictionary sellers;
+        private final RetentionPolicy retention;
+        // Slots written so far; under a bounded policy some of them may be free
+        private int size = 0;
+        private double[] prices;
+        private int[] counts;
+        private int[] sellerCodes;
+        private long[] timestamps;
+        private long[] expiresAt;
+        private int[] heap = new int[0];
+        private int heapSize = 0;
+        private int[] free = new int[0];
+        private int freeSize = 0;
+        private long retainedUnits = 0;
+
+        public Builder(Item item, SellerDictionary sellers, int capacity) {
+            this(item, sellers, capacity, RetentionPolicy.ALL);
+        }
+
+        public Builder(Item item, SellerDictionary sellers, int capacity, RetentionPolicy retention) {
+            this.item = item;
+            this.sellers = sellers;
+            this.retention = retention;
+            int initial = Math.max(4, retention.getMode() == RetentionPolicy.Mode.LISTINGS
+                    ? Math.min(capacity, retention.getLimit() + 1)
+                    : capacity);
+            this.prices = new double[initial];
+            this.counts = new int[initial];
+            this.sellerCodes = new int[initial];
+            this.timestamps = new long[initial];
+            this.expiresAt = new long[initial];
+        }
+
+        public Builder add(double price, int count, int sellerCode, long timestamp, long expiry) {
+            int units = Math.max(1, count);
+            // Already holding enough cheaper stock: this listing would be the first one evicted
+            if (retention.isBounded() && isFull() && price / units >= unitPrice(heap[0])) {
+                return this;
+            }
+
+            int row;
+            if (freeSize > 0) {
+                row = free[--freeSize];
+            } else {
+                ensureCapacity(size + 1);
+                row = size++;
+            }
+            prices[row] = price;
+            counts[row] = units;
+            sellerCodes[row] = sellerCode;
+            timestamps[row] = timestamp;
+            expiresAt[row] = expiry;
+
+            if (retention.isBounded()) {
+                retainedUnits += units;
+                push(row);
+                while (isOverLimit()) {
+                    evictPriciest();
+                }
+            }
+            return this;
+        }
+
+        // Listings currently retained
+        public int size() {
+            return retention.isBounded() ? heapSize : size;
+        }
+
+        private boolean isFull() {
+            return retention.getMode() == RetentionPolicy.Mode.LISTINGS
+                    ? heapSize >= retention.getLimit()
+                    : retainedUnits >= retention.getLimit();
+        }
+
+        // Whether dropping the priciest listing would still leave the limit covered
+        private boolean isOverLimit() {
+            return retention.getMode() == RetentionPolicy.Mode.LISTINGS
+                    ? heapSize > retention.getLimit()
+                    : retainedUnits - counts[heap[0]] >= retention.getLimit();
+        }
+
+        private double unitPrice(int row) {
+            return prices[row] / counts[row];
+        }
+
+        private void push(int row) {
+            if (heapSize == heap.length) {
+                heap = Arrays.copyOf(heap, Math.max(8, heapSize * 2));
+            }
+            int at = heapSize++;
+            double unitPrice = unitPrice(row);
+            while (at > 0) {
+                int parent = (at - 1) >>> 1;
+                if (unitPrice(heap[parent]) >= unitPrice) {
+                    break;
+                }
+                heap[at] = heap[parent];
+                at = parent;
+            }
+            heap[at] = row;
+        }
+
+        private void evictPriciest() {
+            int evicted = heap[0];
+            retainedUnits -= counts[evicted];
+            int last = heap[--heapSize];
+            if (heapSize > 0) {
+                double unitPrice = unitPrice(last);
+                int at = 0;
+                while (true) {
+                    int child = 2 * at + 1;
+                    if (child >= heapSize) {
+                        break;
+                    }
+                    if (child + 1 < heapSize && unitPrice(heap[child + 1]) > unitPrice(heap[child])) {
+                        child++;
+                    }
+                    if (unitPrice(heap[child]) <= unitPrice) {
+                        break;
+                    }
+                    heap[at] = heap[child];
+                    at = child;
+                }
+                heap[at] = last;
+            }
+
+            if (freeSize == free.length) {
+                free = Arrays.copyOf(free, Math.max(8, freeSize * 2));
+            }
+            free[freeSize++] = evicted;
+        }
+
+        private void ensureCapacity(int needed) {
+            if (needed <= prices.length) {
+                return;
+            }
+            int capacity = Math.max(needed, prices.length + (prices.length >> 1));
+            prices = Arrays.copyOf(prices, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            sellerCodes = Arrays.copyOf(sellerCodes, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            expiresAt = Arrays.copyOf(expiresAt, capacity);
+        }
+
+        public ItemListings buildSorted() {
+            int live = size();
+            if (live == 0) {
+                return EMPTY;
+            }
+
+            // Sort a row permutation by unit price, then gather every column through it exactly once
+            int[] order = new int[live];
+            double[] keys = new double[size];
+            for (int i = 0; i < live; i++) {
+                order[i] = retention.isBounded() ? heap[i] : i;
+                keys[order[i]] = unitPrice(order[i]);
+            }
+            sortByKey(order, keys);
+
+            double[] sortedPrices = new double[live];
+            double[] sortedUnitPrices = new double[live];
+            int[] sortedCounts = new int[live];
+            int[] sortedSellers = new int[live];
+            long[] sortedTimestamps = new long[live];
+            long[] sortedExpiry = new long[live];
+            long[] cumulativeUnits = new long[live];
+            double[] cumulativeCost = new double[live];
+            long units = 0;
+            double cost = 0;
+            for (int i = 0; i < live; i++) {
+                int row = order[i];
+                sortedPrices[i] = prices[row];
+                sortedUnitPrices[i] = keys[row];
+                sortedCounts[i] = counts[row];
+                sortedSellers[i] = sellerCodes[row];
+                sortedTimestamps[i] = timestamps[row];
+                sortedExpiry[i] = expiresAt[row];
+                units += counts[row];
+                cost += prices[row];
+                cumulativeUnits[i] = units;
+                cumulativeCost[i] = cost;
+            }
+
+            return new ItemListings(item, sellers, live, sortedPrices, sortedUnitPrices, sortedCounts,
+                    sortedSellers, sortedTimestamps, sortedExpiry, cumulativeUnits, cumulativeCost);
+        }
+
+        // Stable bottom-up merge sort of row indices by keys[row], on primitive arrays only
+        private static void sortByKey(int[] order, double[] keys) {
+            int[] from = order;
+            int[] to = new int[order.length];
+            for (int width = 1; width < order.length; width *= 2) {
+                for (int lo = 0; lo < order.length; lo += 2 * width) {
+                    int mid = Math.min(lo + width, order.length);
+                    int hi = Math.min(lo + 2 * width, order.length);
+                    int left = lo;
+                    int right = mid;
+                    for (int i = lo; i < hi; i++) {
+                        if (left < mid && (right >= hi || Double.compare(keys[from[left]], keys[from[right]]) <= 0)) {
+                            to[i] = from[left++];
+                        } else {
+                            to[i] = from[right++];
+                        }
+                    }
+                }
+                int[] swap = from;
+                from = to;
+                to = swap;
+            }
+            if (from != order) {
+                System.arraycopy(from, 0, order, 0, order.length);
+            }
+        }
+    }
+}
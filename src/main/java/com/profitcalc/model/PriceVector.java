@@ -0,0 +1,76 @@
+package com.profitcalc.model;
+
+import net.minecraft.registry.Registries;
+
+import java.util.BitSet;
+
+// Floor unit price, the cheapest listing's units and what that whole listing costs for every item,
+// dense by raw registry id. Most recipe ingredients fit inside the cheapest listing, so costing them
+// is one lookup; larger quantities fall back to the snapshot's order book.
+public class PriceVector {
+    private final AuctionSnapshot market;
+    private final double[] floorPrices;
+    private final int[] floorDepths;
+    private final double[] floorCosts;
+
+    private PriceVector(AuctionSnapshot market, double[] floorPrices, int[] floorDepths, double[] floorCosts) {
+        this.market = market;
+        this.floorPrices = floorPrices;
+        this.floorDepths = floorDepths;
+        this.floorCosts = floorCosts;
+    }
+
+    static PriceVector of(AuctionSnapshot market) {
+        int length = Registries.ITEM.size();
+        double[] floorPrices = new double[length];
+        int[] floorDepths = new int[length];
+        double[] floorCosts = new double[length];
+        for (int rawId = 0; rawId < length; rawId++) {
+            ItemListings listings = market.getItemListings(rawId);
+            if (!listings.isEmpty()) {
+                floorPrices[rawId] = listings.getMin();
+                floorDepths[rawId] = listings.countAt(0);
+                floorCosts[rawId] = listings.priceAt(0);
+            }
+        }
+        return new PriceVector(market, floorPrices, floorDepths, floorCosts);
+    }
+
+    // A copy for a snapshot derived from this one in which only the given items' listings changed
+    PriceVector with(AuctionSnapshot next, BitSet changed) {
+        double[] nextPrices = floorPrices.clone();
+        int[] nextDepths = floorDepths.clone();
+        double[] nextCosts = floorCosts.clone();
+        for (int rawId = changed.nextSetBit(0); rawId >= 0 && rawId < nextPrices.length; rawId = changed.nextSetBit(rawId + 1)) {
+            ItemListings listings = next.getItemListings(rawId);
+            nextPrices[rawId] = listings.isEmpty() ? 0 : listings.getMin();
+            nextDepths[rawId] = listings.isEmpty() ? 0 : listings.countAt(0);
+            nextCosts[rawId] = listings.isEmpty() ? 0 : listings.priceAt(0);
+        }
+        return new PriceVector(next, nextPrices, nextDepths, nextCosts);
+    }
+
+    public int size() {
+        return floorPrices.length;
+    }
+
+    public boolean isListed(int rawId) {
+        return floorDepths[rawId] > 0;
+    }
+
+    public double floorPrice(int rawId) {
+        return floorPrices[rawId];
+    }
+
+    // Amount spent on the cheapest n units in whole listings, or -1 when the book is too shallow;
+    // unlisted items have no depth
+    public double costForUnits(int rawId, int units) {
+        if (units <= 0) {
+            return 0;
+        }
+        if (units <= floorDepths[rawId]) {
+            return floorCosts[rawId];
+        }
+        return market.getItemListings(rawId).costForUnits(units);
+    }
+}
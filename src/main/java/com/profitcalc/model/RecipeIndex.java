@@ -0,0 +1,110 @@
+package com.profitcalc.model;
+
+import net.minecraft.item.Item;
+
+import java.util.*;
+
+// One immutable version of the recipe book: recipes by output, the reverse index by ingredient and
+// the compiled matrix. A reload or a custom recipe builds a new index and publishes it whole, so
+// readers always see one consistent recipe set.
+public class RecipeIndex {
+    private final long version;
+    private final List<CraftingRecipe> recipes;
+    private final Map<Item, List<CraftingRecipe>> byOutput;
+    // Reverse index: every recipe that consumes a given ingredient
+    private final Map<Item, List<CraftingRecipe>> byIngredient;
+    private volatile RecipeMatrix matrix;
+
+    private RecipeIndex(long version, List<CraftingRecipe> recipes) {
+        this.version = version;
+        this.recipes = Collections.unmodifiableList(recipes);
+
+        Map<Item, List<CraftingRecipe>> outputs = new HashMap<>();
+        Map<Item, List<CraftingRecipe>> ingredients = new HashMap<>();
+        for (CraftingRecipe recipe : recipes) {
+            outputs.computeIfAbsent(recipe.getOutput(), k -> new ArrayList<>()).add(recipe);
+            Set<Item> seen = new HashSet<>();
+            for (RecipeIngredient ingredient : recipe.getIngredients()) {
+                // Every accepted item, so a price change of any of them reaches the recipe
+                for (Item item : ingredient.getAlternatives()) {
+                    if (seen.add(item)) {
+                        ingredients.computeIfAbsent(item, k -> new ArrayList<>()).add(recipe);
+                    }
+                }
+            }
+        }
+        outputs.replaceAll((item, list) -> Collections.unmodifiableList(list));
+        ingredients.replaceAll((item, list) -> Collections.unmodifiableList(list));
+        this.byOutput = Collections.unmodifiableMap(outputs);
+        this.byIngredient = Collections.unmodifiableMap(ingredients);
+    }
+
+    public static RecipeIndex empty() {
+        return new RecipeIndex(0, new ArrayList<>());
+    }
+
+    public static RecipeIndex of(long version, Collection<CraftingRecipe> recipes) {
+        return new RecipeIndex(version, new ArrayList<>(recipes));
+    }
+
+    // A copy with one more recipe
+    public RecipeIndex with(CraftingRecipe recipe, long newVersion) {
+        List<CraftingRecipe> next = new ArrayList<>(recipes.size() + 1);
+        next.addAll(recipes);
+        next.add(recipe);
+        return new RecipeIndex(newVersion, next);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return recipes.size();
+    }
+
+    public List<CraftingRecipe> getRecipes() {
+        return recipes;
+    }
+
+    public Map<Item, List<CraftingRecipe>> getRecipesByOutput() {
+        return byOutput;
+    }
+
+    public List<CraftingRecipe> getRecipes(Item output) {
+        return byOutput.getOrDefault(output, List.of());
+    }
+
+    public List<CraftingRecipe> getRecipesUsing(Item ingredient) {
+        return byIngredient.getOrDefault(ingredient, List.of());
+    }
+
+    public boolean hasRecipe(Item item) {
+        return byOutput.containsKey(item);
+    }
+
+    // Outputs whose result depends on the listings of any of the given items: the items themselves
+    // (their selling price) and every output of a recipe that consumes one of them
+    public Set<Item> getOutputsAffectedBy(Collection<Item> changed) {
+        Set<Item> affected = new HashSet<>();
+        for (Item item : changed) {
+            if (hasRecipe(item)) {
+                affected.add(item);
+            }
+            for (CraftingRecipe recipe : getRecipesUsing(item)) {
+                affected.add(recipe.getOutput());
+            }
+        }
+        return affected;
+    }
+
+    // Compiled on first use; a racing duplicate compile is harmless
+    public RecipeMatrix getMatrix() {
+        RecipeMatrix compiled = matrix;
+        if (compiled == null) {
+            compiled = RecipeMatrix.compile(byOutput, version);
+            matrix = compiled;
+        }
+        return compiled;
+    }
+}
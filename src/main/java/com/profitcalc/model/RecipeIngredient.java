@@ -2,13 +2,24 @@ package com.profitcalc.model;
 
 import net.minecraft.item.Item;
 
+import java.util.List;
+
 public class RecipeIngredient {
     private final Item item;
     private final int quantity;
+    // Every item the slot accepts ("any planks"), first one first; just the item for a fixed ingredient
+    private final List<Item> alternatives;
 
     public RecipeIngredient(Item item, int quantity) {
         this.item = item;
         this.quantity = quantity;
+        this.alternatives = List.of(item);
+    }
+
+    public RecipeIngredient(List<Item> alternatives, int quantity) {
+        this.item = alternatives.get(0);
+        this.quantity = quantity;
+        this.alternatives = List.copyOf(alternatives);
     }
 
     public Item getItem() {
@@ -19,8 +30,19 @@ public class RecipeIngredient {
         return quantity;
     }
 
+    public List<Item> getAlternatives() {
+        return alternatives;
+    }
+
+    public boolean hasAlternatives() {
+        return alternatives.size() > 1;
+    }
+
     @Override
     public String toString() {
+        if (hasAlternatives()) {
+            return quantity + "x any of " + alternatives;
+        }
         return quantity + "x " + item.toString();
     }
 }
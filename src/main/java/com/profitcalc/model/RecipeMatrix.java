@@ -0,0 +1,293 @@
+package com.profitcalc.model;
+
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// The recipe book compiled into a compressed sparse row matrix: one row per recipe, holding the
+// ingredient ids and quantities of its ingredients. Rows are grouped by output item. Costing a recipe
+// is a sparse dot product against IngredientPrices, and costing the whole book is one allocation-free
+// pass. An ingredient id is a raw item id, or -(c + 1) for choice c: a slot that accepts any of
+// several items. Choices are interned, so every "any planks" slot in the book shares one choice.
+public class RecipeMatrix {
+    private final long version;
+    // Output group g covers rows groupStart[g] until groupStart[g + 1]
+    private final int[] outputIds;
+    private final int[] groupStart;
+    private final int[] groupByRawId;
+    // Row r covers entries rowStart[r] until rowStart[r + 1]
+    private final int[] rowStart;
+    private final int[] ingredientIds;
+    private final int[] quantities;
+    private final CraftingRecipe[] recipes;
+    // Choice c has members choiceMembers[memberStart[c] .. memberStart[c + 1])
+    private final int[] memberStart;
+    private final int[] choiceMembers;
+    // Reverse index: raw id r belongs to choices memberChoices[choiceStart[r] .. choiceStart[r + 1])
+    private final int[] choiceStart;
+    private final int[] memberChoices;
+    // Prices for the most recent snapshot, advanced incrementally to the next one
+    private volatile IngredientPrices lastPrices;
+
+    private RecipeMatrix(long version, int[] outputIds, int[] groupStart, int[] groupByRawId, int[] rowStart,
+                         int[] ingredientIds, int[] quantities, CraftingRecipe[] recipes,
+                         int[] memberStart, int[] choiceMembers, int[] choiceStart, int[] memberChoices) {
+        this.version = version;
+        this.outputIds = outputIds;
+        this.groupStart = groupStart;
+        this.groupByRawId = groupByRawId;
+        this.rowStart = rowStart;
+        this.ingredientIds = ingredientIds;
+        this.quantities = quantities;
+        this.recipes = recipes;
+        this.memberStart = memberStart;
+        this.choiceMembers = choiceMembers;
+        this.choiceStart = choiceStart;
+        this.memberChoices = memberChoices;
+    }
+
+    public static RecipeMatrix compile(Map<Item, List<CraftingRecipe>> recipesByOutput, long version) {
+        int itemCount = Registries.ITEM.size();
+        int[] groupByRawId = new int[itemCount];
+        Arrays.fill(groupByRawId, -1);
+
+        List<Integer> outputs = new ArrayList<>();
+        List<Integer> groupStarts = new ArrayList<>();
+        List<CraftingRecipe> rows = new ArrayList<>();
+        int entries = 0;
+
+        for (Map.Entry<Item, List<CraftingRecipe>> entry : recipesByOutput.entrySet()) {
+            int output = Registries.ITEM.getRawId(entry.getKey());
+            if (output < 0 || output >= itemCount) {
+                continue;
+            }
+            int firstRow = rows.size();
+            for (CraftingRecipe recipe : entry.getValue()) {
+                if (hasValidIngredients(recipe, itemCount)) {
+                    rows.add(recipe);
+                    entries += recipe.getIngredients().size();
+                }
+            }
+            if (rows.size() > firstRow) {
+                groupByRawId[output] = outputs.size();
+                outputs.add(output);
+                groupStarts.add(firstRow);
+            }
+        }
+        groupStarts.add(rows.size());
+
+        int[] rowStart = new int[rows.size() + 1];
+        int[] ingredientIds = new int[entries];
+        int[] quantities = new int[entries];
+        Map<List<Integer>, Integer> choiceIds = new HashMap<>();
+        List<List<Integer>> choices = new ArrayList<>();
+        int at = 0;
+        for (int row = 0; row < rows.size(); row++) {
+            rowStart[row] = at;
+            for (RecipeIngredient ingredient : rows.get(row).getIngredients()) {
+                List<Integer> members = validMembers(ingredient, itemCount);
+                if (members.size() == 1) {
+                    ingredientIds[at] = members.get(0);
+                } else {
+                    int choice = choiceIds.computeIfAbsent(members, k -> {
+                        choices.add(k);
+                        return choices.size() - 1;
+                    });
+                    ingredientIds[at] = -(choice + 1);
+                }
+                quantities[at] = ingredient.getQuantity();
+                at++;
+            }
+        }
+        rowStart[rows.size()] = at;
+
+        // Choices as CSR, plus the reverse index from member to choices
+        int[] memberStart = new int[choices.size() + 1];
+        int[] choiceStart = new int[itemCount + 1];
+        int memberCount = 0;
+        for (int choice = 0; choice < choices.size(); choice++) {
+            memberStart[choice] = memberCount;
+            memberCount += choices.get(choice).size();
+            for (int rawId : choices.get(choice)) {
+                choiceStart[rawId + 1]++;
+            }
+        }
+        memberStart[choices.size()] = memberCount;
+        for (int rawId = 0; rawId < itemCount; rawId++) {
+            choiceStart[rawId + 1] += choiceStart[rawId];
+        }
+        int[] choiceMembers = new int[memberCount];
+        int[] memberChoices = new int[memberCount];
+        int[] fill = Arrays.copyOf(choiceStart, itemCount);
+        for (int choice = 0; choice < choices.size(); choice++) {
+            int member = memberStart[choice];
+            for (int rawId : choices.get(choice)) {
+                choiceMembers[member++] = rawId;
+                memberChoices[fill[rawId]++] = choice;
+            }
+        }
+
+        return new RecipeMatrix(version,
+                outputs.stream().mapToInt(Integer::intValue).toArray(),
+                groupStarts.stream().mapToInt(Integer::intValue).toArray(),
+                groupByRawId, rowStart, ingredientIds, quantities,
+                rows.toArray(new CraftingRecipe[0]),
+                memberStart, choiceMembers, choiceStart, memberChoices);
+    }
+
+    // A slot is usable while at least one of its items is registered
+    private static boolean hasValidIngredients(CraftingRecipe recipe, int itemCount) {
+        for (RecipeIngredient ingredient : recipe.getIngredients()) {
+            if (validMembers(ingredient, itemCount).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Integer> validMembers(RecipeIngredient ingredient, int itemCount) {
+        List<Integer> members = new ArrayList<>(ingredient.getAlternatives().size());
+        for (Item item : ingredient.getAlternatives()) {
+            int rawId = Registries.ITEM.getRawId(item);
+            if (rawId >= 0 && rawId < itemCount && !members.contains(rawId)) {
+                members.add(rawId);
+            }
+        }
+        return members;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int outputCount() {
+        return outputIds.length;
+    }
+
+    public int rowCount() {
+        return recipes.length;
+    }
+
+    public int outputRawId(int group) {
+        return outputIds[group];
+    }
+
+    // Output group of an item, or -1 when it has no recipe
+    public int groupOf(Item item) {
+        int rawId = Registries.ITEM.getRawId(item);
+        return rawId >= 0 && rawId < groupByRawId.length ? groupByRawId[rawId] : -1;
+    }
+
+    public int firstRow(int group) {
+        return groupStart[group];
+    }
+
+    public int endRow(int group) {
+        return groupStart[group + 1];
+    }
+
+    public CraftingRecipe recipe(int row) {
+        return recipes[row];
+    }
+
+    // The recipe as bought at these prices: every choice replaced by the member its quantity is
+    // cheapest to buy from, the same member rowCost priced
+    public CraftingRecipe resolvedRecipe(int row, IngredientPrices prices) {
+        CraftingRecipe recipe = recipes[row];
+        boolean hasChoice = false;
+        for (int i = rowStart[row], end = rowStart[row + 1]; i < end && !hasChoice; i++) {
+            hasChoice = ingredientIds[i] < 0;
+        }
+        if (!hasChoice) {
+            return recipe;
+        }
+        CraftingRecipe resolved = new CraftingRecipe(recipe.getOutput(), recipe.getOutputQuantity());
+        for (int i = rowStart[row], end = rowStart[row + 1]; i < end; i++) {
+            resolved.addIngredient(Registries.ITEM.get(prices.resolve(ingredientIds[i], quantities[i])), quantities[i]);
+        }
+        return resolved;
+    }
+
+    public int choiceCount() {
+        return memberStart.length - 1;
+    }
+
+    int firstMember(int choice) {
+        return memberStart[choice];
+    }
+
+    int endMember(int choice) {
+        return memberStart[choice + 1];
+    }
+
+    int choiceMember(int member) {
+        return choiceMembers[member];
+    }
+
+    int firstChoiceOf(int rawId) {
+        return rawId >= 0 && rawId < choiceStart.length - 1 ? choiceStart[rawId] : 0;
+    }
+
+    int endChoiceOf(int rawId) {
+        return rawId >= 0 && rawId < choiceStart.length - 1 ? choiceStart[rawId + 1] : 0;
+    }
+
+    int choiceOfMember(int index) {
+        return memberChoices[index];
+    }
+
+    // Prices for this book on the given snapshot. Moving on to a newer snapshot only re-scans the
+    // choices that contain a changed item; an older snapshot is priced from scratch.
+    public IngredientPrices pricesFor(AuctionSnapshot market) {
+        IngredientPrices last = lastPrices;
+        if (last != null && last.getMarket() == market) {
+            return last;
+        }
+        IngredientPrices next = last != null && last.getMarket().getVersion() < market.getVersion()
+                ? IngredientPrices.update(this, last, market)
+                : IngredientPrices.of(this, market);
+        if (last == null || last.getMarket().getVersion() <= market.getVersion()) {
+            lastPrices = next;
+        }
+        return next;
+    }
+
+    // Materials cost of one craft, or -1 when an ingredient is missing or too thinly listed
+    public double rowCost(int row, IngredientPrices prices) {
+        double cost = 0;
+        for (int i = rowStart[row], end = rowStart[row + 1]; i < end; i++) {
+            double ingredientCost = prices.costForUnits(ingredientIds[i], quantities[i]);
+            if (ingredientCost < 0) {
+                return -1;
+            }
+            cost += ingredientCost;
+        }
+        return cost;
+    }
+
+    // Floor price times quantity for every ingredient. Never above rowCost, since deeper units only
+    // cost more and whole listings never cost less than the units needed, so it bounds a recipe's cost from below without touching the order books.
+    // Returns -1 when an ingredient is not listed at all.
+    public double rowLowerBound(int row, IngredientPrices prices) {
+        double cost = 0;
+        for (int i = rowStart[row], end = rowStart[row + 1]; i < end; i++) {
+            if (!prices.isListed(ingredientIds[i])) {
+                return -1;
+            }
+            cost += quantities[i] * prices.floorPrice(ingredientIds[i]);
+        }
+        return cost;
+    }
+
+    // Every recipe's cost in one pass; out must hold rowCount() values
+    public void costAll(IngredientPrices prices, double[] out) {
+        for (int row = 0; row < recipes.length; row++) {
+            out[row] = rowCost(row, prices);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.profitcalc.model;
+
+// How much of each item's order book is kept. Listings far above the floor never affect a
+// profit calculation, so a bounded policy keeps only the cheapest listings or units per item.
+public class RetentionPolicy {
+    public static final RetentionPolicy ALL = new RetentionPolicy(Mode.ALL, 0);
+
+    public enum Mode {
+        ALL,
+        LISTINGS,
+        UNITS
+    }
+
+    private final Mode mode;
+    private final int limit;
+
+    private RetentionPolicy(Mode mode, int limit) {
+        this.mode = mode;
+        this.limit = limit;
+    }
+
+    public static RetentionPolicy cheapestListings(int limit) {
+        return limit > 0 ? new RetentionPolicy(Mode.LISTINGS, limit) : ALL;
+    }
+
+    public static RetentionPolicy cheapestUnits(int limit) {
+        return limit > 0 ? new RetentionPolicy(Mode.UNITS, limit) : ALL;
+    }
+
+    // Unknown modes and non-positive limits fall back to keeping everything
+    public static RetentionPolicy of(String mode, int limit) {
+        if (mode == null) {
+            return ALL;
+        }
+        return switch (mode.trim().toLowerCase()) {
+            case "listings" -> cheapestListings(limit);
+            case "units" -> cheapestUnits(limit);
+            default -> ALL;
+        };
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public boolean isBounded() {
+        return mode != Mode.ALL;
+    }
+
+    @Override
+    public String toString() {
+        return isBounded() ? "cheapest " + limit + " " + mode.name().toLowerCase() : "all";
+    }
+}
@@ -0,0 +1,30 @@
+package com.profitcalc.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Append-only string interning for seller names, so listings store a 4-byte code instead of a String
+public class SellerDictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    public synchronized int encode(String name) {
+        Integer code = codes.get(name);
+        if (code == null) {
+            code = names.size();
+            names.add(name);
+            codes.put(name, code);
+        }
+        return code;
+    }
+
+    public synchronized String decode(int code) {
+        return names.get(code);
+    }
+
+    public synchronized int size() {
+        return names.size();
+    }
+}
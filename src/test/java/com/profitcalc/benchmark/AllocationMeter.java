@@ -0,0 +1,31 @@
+package com.profitcalc.benchmark;
+
+import java.lang.management.ManagementFactory;
+
+public class AllocationMeter {
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = resolveThreadBean();
+
+    private AllocationMeter() {}
+
+    public static boolean isSupported() {
+        return THREAD_BEAN != null && THREAD_BEAN.isThreadAllocatedMemorySupported();
+    }
+
+    // Bytes allocated so far by the calling thread, or -1 when the JVM can't report it
+    public static long allocatedBytes() {
+        if (!isSupported()) {
+            return -1;
+        }
+        return THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean resolveThreadBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean) {
+            if (bean.isThreadAllocatedMemorySupported() && !bean.isThreadAllocatedMemoryEnabled()) {
+                bean.setThreadAllocatedMemoryEnabled(true);
+            }
+            return bean;
+        }
+        return null;
+    }
+}
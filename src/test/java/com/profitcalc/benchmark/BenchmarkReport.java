@@ -0,0 +1,35 @@
+package com.profitcalc.benchmark;
+
+import com.profitcalc.manager.RecipeManager;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+// Prints each benchmark's report. Tagged so the regular test run skips it; run with gradle benchmark
+@Tag("benchmark")
+class BenchmarkReport {
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+    }
+
+    @Test
+    void decode() {
+        System.out.println(DecodeBenchmark.run());
+    }
+
+    @Test
+    void store() {
+        System.out.println(StoreBenchmark.run());
+    }
+
+    @Test
+    void calc() {
+        // The recipes the last dev session cached; there is no world to import them from here
+        RecipeManager.getInstance().loadCachedRecipes().join();
+        System.out.println(CalcBenchmark.run());
+    }
+}
@@ -0,0 +1,148 @@
+package com.profitcalc.benchmark;
+
+import com.profitcalc.calculator.ProfitCalculator;
+import com.profitcalc.config.ConfigManager;
+import com.profitcalc.manager.RecipeManager;
+import com.profitcalc.model.AuctionSnapshot;
+import com.profitcalc.model.CraftingRecipe;
+import com.profitcalc.model.IngredientPrices;
+import com.profitcalc.model.ProfitCalculation;
+import com.profitcalc.model.RecipeIngredient;
+import com.profitcalc.model.RecipeMatrix;
+import com.profitcalc.model.SellerDictionary;
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.IntSupplier;
+
+// Compares a full-market evaluation done item by item over the registry with the single-pass batch
+// evaluator, on a synthetic market that lists every loaded recipe output and ingredient
+public class CalcBenchmark {
+    private static final int LISTINGS_PER_ITEM = 20;
+    private static final int TOP_K = 50;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 10;
+    // Below every published version, so no per-snapshot cache mistakes the synthetic market for a real one
+    private static final long SYNTHETIC_VERSION = -1;
+
+    // Results land here so the JIT cannot discard the work being timed
+    private static volatile int sink;
+
+    private CalcBenchmark() {}
+
+    public static String run() {
+        Map<Item, List<CraftingRecipe>> recipes = RecipeManager.getInstance().getRecipesByOutput();
+        if (recipes.isEmpty()) {
+            return "No recipes loaded; join a world in runClient once to write the recipe cache";
+        }
+
+        AuctionSnapshot market = syntheticMarket(recipes);
+
+        long perItemNanos = measure(() -> perItem(market));
+        long batchNanos = measure(() -> ProfitCalculator.getInstance().evaluateSequential(market).size());
+        long parallelNanos = measure(() -> ProfitCalculator.getInstance().evaluateParallel(market).size());
+
+        // The best TOP_K by margin: full evaluation and sort against bounded selection with early cut-off
+        long fullSortNanos = measure(() -> {
+            List<ProfitCalculation> all = new ArrayList<>();
+            for (ProfitCalculation calculation : ProfitCalculator.getInstance().evaluateSequential(market)) {
+                if (calculation.isProfitable()) {
+                    all.add(calculation);
+                }
+            }
+            all.sort(ProfitCalculator.Ranking.MARGIN.order());
+            return Math.min(all.size(), TOP_K);
+        });
+        long topKNanos = measure(() -> ProfitCalculator.getInstance()
+                .findTopProfitable(market, Double.MAX_VALUE, TOP_K, ProfitCalculator.Ranking.MARGIN, false).size());
+
+        // Costing the compiled book on its own: a sparse matrix-vector product into a reused array
+        RecipeMatrix matrix = RecipeManager.getInstance().getRecipeMatrix();
+        IngredientPrices prices = matrix.pricesFor(market);
+        double[] costs = new double[matrix.rowCount()];
+        long matrixNanos = measure(() -> {
+            matrix.costAll(prices, costs);
+            return costs.length;
+        });
+        long matrixBytes = -1;
+        if (AllocationMeter.isSupported()) {
+            long before = AllocationMeter.allocatedBytes();
+            matrix.costAll(prices, costs);
+            matrixBytes = AllocationMeter.allocatedBytes() - before;
+        }
+
+        return String.format("Evaluate %d outputs over %d listed items: per item %.2f ms, batch %.2f ms (%.1fx faster), "
+                        + "parallel on %d threads %.2f ms (%.1fx faster); top %d by margin: sort all %.2f ms, bounded %.2f ms; "
+                        + "costing all %d recipes %.3f ms, %d B allocated",
+                recipes.size(), market.getItems().size(), perItemNanos / 1e6, batchNanos / 1e6,
+                batchNanos > 0 ? (double) perItemNanos / batchNanos : 0,
+                ConfigManager.getInstance().getCalculationThreads(), parallelNanos / 1e6,
+                parallelNanos > 0 ? (double) perItemNanos / parallelNanos : 0,
+                TOP_K, fullSortNanos / 1e6, topKNanos / 1e6,
+                matrix.rowCount(), matrixNanos / 1e6, matrixBytes);
+    }
+
+    private static long measure(IntSupplier round) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += round.getAsInt();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            sink += round.getAsInt();
+        }
+        return (System.nanoTime() - start) / MEASURED_ROUNDS;
+    }
+
+    // The path the calculator used to take: every registry item, cheapest recipe, then its cost again
+    private static int perItem(AuctionSnapshot market) {
+        RecipeManager recipeManager = RecipeManager.getInstance();
+        int found = 0;
+        for (Item item : Registries.ITEM) {
+            if (!recipeManager.hasRecipe(item) || market.getItemListings(item).isEmpty()) {
+                continue;
+            }
+            Optional<CraftingRecipe> recipe = recipeManager.getCheapestRecipe(item, market);
+            if (recipe.isEmpty() || recipeManager.calculateRecipeCost(recipe.get(), market) < 0) {
+                continue;
+            }
+            Map<Item, Double> materialPrices = new HashMap<>();
+            for (RecipeIngredient ingredient : recipe.get().getIngredients()) {
+                double cost = market.getItemListings(ingredient.getItem()).costForUnits(ingredient.getQuantity());
+                if (cost >= 0) {
+                    materialPrices.put(ingredient.getItem(), cost / ingredient.getQuantity());
+                }
+            }
+            found += materialPrices.isEmpty() ? 0 : 1;
+        }
+        return found;
+    }
+
+    private static AuctionSnapshot syntheticMarket(Map<Item, List<CraftingRecipe>> recipes) {
+        Set<Item> listed = new LinkedHashSet<>(recipes.keySet());
+        for (List<CraftingRecipe> outputRecipes : recipes.values()) {
+            for (CraftingRecipe recipe : outputRecipes) {
+                for (RecipeIngredient ingredient : recipe.getIngredients()) {
+                    listed.addAll(ingredient.getAlternatives());
+                }
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        AuctionSnapshot.Builder builder = new AuctionSnapshot.Builder(new SellerDictionary());
+        int i = 0;
+        for (Item item : listed) {
+            for (int listing = 0; listing < LISTINGS_PER_ITEM; listing++, i++) {
+                builder.add(item, 10 + i % 997, 1 + i % 64, "Seller" + (i % 500), now, now + 300_000);
+            }
+        }
+        return builder.build(SYNTHETIC_VERSION, true);
+    }
+}
@@ -0,0 +1,105 @@
+package com.profitcalc.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.profitcalc.api.model.AuctionEntryAdapter;
+import com.profitcalc.api.model.AuctionResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.jar.JarFile;
+
+// Compares bytes allocated per 1,000 decoded entries for the full Gson model and the projection adapter
+public class DecodeBenchmark {
+    private static final int ENTRIES = 1000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    private DecodeBenchmark() {}
+
+    public static String run() {
+        if (!AllocationMeter.isSupported()) {
+            return "Allocation measurement is not supported on this JVM";
+        }
+
+        String page = samplePage(ENTRIES);
+        TypeAdapter<AuctionResponse.AuctionEntry> full = new Gson().getAdapter(AuctionResponse.AuctionEntry.class);
+        TypeAdapter<AuctionResponse.AuctionEntry> projected = new AuctionEntryAdapter();
+
+        try {
+            long fullBytes = measure(page, full);
+            long projectedBytes = measure(page, projected);
+            return String.format("Decode per %d entries on Gson %s: full model %d KB, projection %d KB (%.1fx less)",
+                    ENTRIES, gsonVersion(), fullBytes / 1024, projectedBytes / 1024,
+                    projectedBytes > 0 ? (double) fullBytes / projectedBytes : 0);
+        } catch (IOException e) {
+            return "Decode benchmark failed: " + e.getMessage();
+        }
+    }
+
+    // The Gson actually loaded, which in game may be Minecraft's copy rather than the one the build pins
+    private static String gsonVersion() {
+        try {
+            File location = new File(Gson.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            try (JarFile jar = new JarFile(location)) {
+                String version = jar.getManifest().getMainAttributes().getValue("Bundle-Version");
+                return version != null ? version : "unknown";
+            }
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+
+    private static long measure(String page, TypeAdapter<AuctionResponse.AuctionEntry> adapter) throws IOException {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            decode(page, adapter);
+        }
+
+        long before = AllocationMeter.allocatedBytes();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            decode(page, adapter);
+        }
+        return (AllocationMeter.allocatedBytes() - before) / MEASURED_ROUNDS;
+    }
+
+    private static int decode(String page, TypeAdapter<AuctionResponse.AuctionEntry> adapter) throws IOException {
+        int checksum = 0;
+        try (JsonReader reader = new JsonReader(new StringReader(page))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("result".equals(reader.nextName())) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        checksum += adapter.read(reader).getItem().getCount();
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        return checksum;
+    }
+
+    // Shaped like a real /v1/auction/list page, including the lore and enchant data we never read
+    private static String samplePage(int entries) {
+        StringBuilder sb = new StringBuilder("{\"result\":[");
+        for (int i = 0; i < entries; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"item\":{\"id\":\"minecraft:diamond_sword\",\"count\":").append(1 + i % 64)
+                    .append(",\"display_name\":\"Sword of Listing ").append(i).append('"')
+                    .append(",\"lore\":[\"A well used blade\",\"Forged on DonutSMP\",\"Listing #").append(i).append("\"]")
+                    .append(",\"enchants\":{\"enchantments\":{\"levels\":{\"minecraft:sharpness\":5,")
+                    .append("\"minecraft:unbreaking\":3,\"minecraft:mending\":1}},")
+                    .append("\"trim\":{\"material\":\"minecraft:gold\",\"pattern\":\"minecraft:coast\"}}},")
+                    .append("\"price\":").append(100 + i).append(".5,")
+                    .append("\"seller\":{\"name\":\"Seller").append(i % 50)
+                    .append("\",\"uuid\":\"00000000-0000-0000-0000-").append(String.format("%012d", i)).append("\"},")
+                    .append("\"time_left\":").append(3_600_000L + i).append('}');
+        }
+        return sb.append("],\"status\":200}").toString();
+    }
+}
@@ -0,0 +1,71 @@
+package com.profitcalc.benchmark;
+
+import com.profitcalc.model.AuctionItem;
+import com.profitcalc.model.AuctionSnapshot;
+import com.profitcalc.model.SellerDictionary;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.registry.Registries;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compares retained heap per listing for the old AuctionItem + ItemStack lists and the columnar snapshot
+public class StoreBenchmark {
+    private static final int LISTINGS = 50_000;
+    private static final int DISTINCT_ITEMS = 300;
+    private static final int DISTINCT_SELLERS = 500;
+
+    private StoreBenchmark() {}
+
+    public static String run() {
+        List<Item> items = new ArrayList<>();
+        for (Item item : Registries.ITEM) {
+            if (Registries.ITEM.getRawId(item) > 0) {
+                items.add(item);
+            }
+            if (items.size() == DISTINCT_ITEMS) {
+                break;
+            }
+        }
+
+        long now = System.currentTimeMillis();
+
+        long baseline = usedHeap();
+        Map<Item, List<AuctionItem>> objectStore = new HashMap<>();
+        for (int i = 0; i < LISTINGS; i++) {
+            Item item = items.get(i % items.size());
+            // Decoded seller names arrive as distinct String instances, one per listing
+            String seller = new String("Seller" + (i % DISTINCT_SELLERS));
+            objectStore.computeIfAbsent(item, k -> new ArrayList<>())
+                    .add(new AuctionItem(new ItemStack(item, 1 + i % 64), 100 + i, seller, now, now + 300_000));
+        }
+        long objectBytes = usedHeap() - baseline;
+        int objectCount = objectStore.values().stream().mapToInt(List::size).sum();
+        objectStore = null;
+
+        baseline = usedHeap();
+        AuctionSnapshot.Builder builder = new AuctionSnapshot.Builder(new SellerDictionary());
+        for (int i = 0; i < LISTINGS; i++) {
+            String seller = new String("Seller" + (i % DISTINCT_SELLERS));
+            builder.add(items.get(i % items.size()), 100 + i, 1 + i % 64, seller, now, now + 300_000);
+        }
+        AuctionSnapshot columnar = builder.build(0, true);
+        builder = null;
+        long columnarBytes = usedHeap() - baseline;
+        int columnarCount = columnar.getTotalListings();
+
+        return String.format("Store per listing (%d listings): objects %d B, columnar %d B",
+                objectCount, objectBytes / objectCount, columnarBytes / Math.max(1, columnarCount));
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
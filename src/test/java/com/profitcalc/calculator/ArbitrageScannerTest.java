@@ -0,0 +1,85 @@
+package com.profitcalc.calculator;
+
+import com.profitcalc.model.AuctionSnapshot;
+import com.profitcalc.model.CraftingRecipe;
+import com.profitcalc.model.RecipeIndex;
+import com.profitcalc.model.SellerDictionary;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.item.Item;
+import net.minecraft.item.Items;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArbitrageScannerTest {
+    private final ArbitrageScanner scanner = new ArbitrageScanner();
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+    }
+
+    // Nine nuggets craft an ingot and an ingot crafts back into nine nuggets
+    private static RecipeIndex ironConversions() {
+        CraftingRecipe ingot = new CraftingRecipe(Items.IRON_INGOT, 1);
+        ingot.addIngredient(Items.IRON_NUGGET, 9);
+        CraftingRecipe nuggets = new CraftingRecipe(Items.IRON_NUGGET, 9);
+        nuggets.addIngredient(Items.IRON_INGOT, 1);
+        return RecipeIndex.of(1, List.of(ingot, nuggets));
+    }
+
+    private static AuctionSnapshot market(double nuggetPrice, double ingotPrice) {
+        AuctionSnapshot.Builder builder = new AuctionSnapshot.Builder(new SellerDictionary());
+        builder.add(Items.IRON_NUGGET, nuggetPrice, 1, "a", 0, Long.MAX_VALUE);
+        builder.add(Items.IRON_INGOT, ingotPrice, 1, "b", 0, Long.MAX_VALUE);
+        return builder.build(1, true);
+    }
+
+    @Test
+    void findsABuyCraftSellLoop() {
+        List<ArbitrageScanner.Loop> loops = scanner.scan(market(1, 12), ironConversions());
+
+        assertFalse(loops.isEmpty());
+        ArbitrageScanner.Loop best = loops.get(0);
+        assertEquals(12.0 / 9 - 1, best.getExpectedReturn(), 1e-9);
+
+        List<ArbitrageScanner.Step> steps = best.getSteps();
+        assertEquals(3, steps.size());
+        assertStep(steps.get(0), ArbitrageScanner.StepKind.BUY, null, Items.IRON_NUGGET);
+        assertStep(steps.get(1), ArbitrageScanner.StepKind.CRAFT, Items.IRON_NUGGET, Items.IRON_INGOT);
+        assertStep(steps.get(2), ArbitrageScanner.StepKind.SELL, null, Items.IRON_INGOT);
+        assertSame(loops, scanner.getLastLoops());
+    }
+
+    @Test
+    void findsTheLoopInTheOtherDirection() {
+        List<ArbitrageScanner.Loop> loops = scanner.scan(market(2, 9), ironConversions());
+
+        assertFalse(loops.isEmpty());
+        assertEquals(18.0 / 9 - 1, loops.get(0).getExpectedReturn(), 1e-9);
+        assertEquals(Items.IRON_INGOT, loops.get(0).getSteps().get(0).getItem());
+    }
+
+    @Test
+    void ignoresFairlyPricedConversions() {
+        assertEquals(List.of(), scanner.scan(market(1, 9), ironConversions()));
+    }
+
+    @Test
+    void ignoresAConversionCycleWithNoListings() {
+        AuctionSnapshot empty = new AuctionSnapshot.Builder(new SellerDictionary()).build(1, true);
+
+        assertEquals(List.of(), scanner.scan(empty, ironConversions()));
+    }
+
+    private static void assertStep(ArbitrageScanner.Step step, ArbitrageScanner.StepKind kind, Item input, Item item) {
+        assertEquals(kind, step.getKind());
+        assertEquals(input, step.getInput());
+        assertEquals(item, step.getItem());
+    }
+}
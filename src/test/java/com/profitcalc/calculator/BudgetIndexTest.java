@@ -0,0 +1,99 @@
+package com.profitcalc.calculator;
+
+import com.profitcalc.model.CraftingRecipe;
+import com.profitcalc.model.ProfitCalculation;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.item.Items;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BudgetIndexTest {
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+    }
+
+    private static ProfitCalculation result(double sellingPrice, double materialsCost) {
+        return new ProfitCalculation(Items.STICK, sellingPrice, materialsCost, new CraftingRecipe(Items.STICK, 1), Map.of());
+    }
+
+    // Every profitable result within budget, best first, cut to k
+    private static List<ProfitCalculation> scan(List<ProfitCalculation> results, double maxBudget, int k,
+                                                ProfitCalculator.Ranking ranking) {
+        List<ProfitCalculation> matching = new ArrayList<>();
+        for (ProfitCalculation calculation : results) {
+            if (calculation.isProfitable() && calculation.getMaterialsCost() <= maxBudget) {
+                matching.add(calculation);
+            }
+        }
+        matching.sort(ranking.order());
+        return matching.subList(0, Math.min(k, matching.size()));
+    }
+
+    @Test
+    void skipsUnprofitableResultsAndHonoursTheBudget() {
+        ProfitCalculation cheap = result(10, 4);
+        ProfitCalculation dear = result(100, 50);
+        BudgetIndex index = new BudgetIndex(1, List.of(cheap, dear, result(5, 8)));
+
+        assertEquals(2, index.size());
+        assertEquals(List.of(), index.query(3, 10, ProfitCalculator.Ranking.PROFIT));
+        assertEquals(List.of(cheap), index.query(49.99, 10, ProfitCalculator.Ranking.PROFIT));
+        assertEquals(List.of(dear, cheap), index.query(50, 10, ProfitCalculator.Ranking.PROFIT));
+        assertEquals(List.of(cheap, dear), index.query(50, 10, ProfitCalculator.Ranking.MARGIN));
+        assertEquals(List.of(dear), index.query(50, 1, ProfitCalculator.Ranking.PROFIT));
+    }
+
+    @Test
+    void matchesAFullScanAcrossCheckpoints() {
+        Random random = new Random(17);
+        List<ProfitCalculation> results = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            double cost = 1 + random.nextInt(10_000) / 10.0;
+            results.add(result(cost * (0.5 + random.nextDouble()), cost));
+        }
+        BudgetIndex index = new BudgetIndex(1, results);
+
+        for (ProfitCalculator.Ranking ranking : ProfitCalculator.Ranking.values()) {
+            for (double budget : new double[] {0, 1, 50, 123.4, 500, 999.9, 5000}) {
+                for (int k : new int[] {1, 10, BudgetIndex.CAPACITY}) {
+                    List<ProfitCalculation> expected = scan(results, budget, k, ranking);
+                    List<ProfitCalculation> actual = index.query(budget, k, ranking);
+                    assertEquals(expected.size(), actual.size(), ranking + " within " + budget + ", k " + k);
+                    for (int i = 0; i < expected.size(); i++) {
+                        assertEquals(ranking.score(expected.get(i)), ranking.score(actual.get(i)),
+                                ranking + " within " + budget + ", k " + k + ", rank " + i);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void capsQueriesAtCapacity() {
+        List<ProfitCalculation> results = new ArrayList<>();
+        for (int i = 1; i <= BudgetIndex.CAPACITY + 50; i++) {
+            results.add(result(2 * i, i));
+        }
+        BudgetIndex index = new BudgetIndex(1, results);
+
+        assertEquals(BudgetIndex.CAPACITY, index.query(Double.MAX_VALUE, 1000, ProfitCalculator.Ranking.PROFIT).size());
+    }
+
+    @Test
+    void isKeyedOnTheResultsVersion() {
+        BudgetIndex index = new BudgetIndex(7, List.of());
+
+        assertTrue(index.isFor(7));
+        assertFalse(index.isFor(8));
+    }
+}
@@ -0,0 +1,119 @@
+package com.profitcalc.manager;
+
+import com.profitcalc.model.CraftingRecipe;
+import com.profitcalc.model.RecipeIngredient;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.item.Items;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecipeCacheTest {
+    private static final String VERSION = "1.21.10";
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+    }
+
+    private static List<CraftingRecipe> recipes() {
+        CraftingRecipe sticks = new CraftingRecipe(Items.STICK, 4);
+        sticks.addIngredient(List.of(Items.OAK_PLANKS, Items.BIRCH_PLANKS), 2);
+        CraftingRecipe ingot = new CraftingRecipe(Items.IRON_INGOT, 1);
+        ingot.addIngredient(Items.IRON_NUGGET, 9);
+        return List.of(sticks, ingot);
+    }
+
+    private RecipeCache written(long fingerprint) {
+        RecipeCache cache = new RecipeCache(dir.resolve("recipes.bin"));
+        cache.write(VERSION, fingerprint, recipes());
+        return cache;
+    }
+
+    @Test
+    void readsBackWhatItWrote() {
+        Optional<RecipeCache.Stored> stored = written(42).read(VERSION, 42L);
+
+        assertTrue(stored.isPresent());
+        assertEquals(42, stored.get().getFingerprint());
+        List<CraftingRecipe> read = stored.get().getRecipes();
+        assertEquals(2, read.size());
+
+        CraftingRecipe sticks = read.get(0);
+        assertEquals(Items.STICK, sticks.getOutput());
+        assertEquals(4, sticks.getOutputQuantity());
+        RecipeIngredient planks = sticks.getIngredients().get(0);
+        assertEquals(2, planks.getQuantity());
+        assertEquals(List.of(Items.OAK_PLANKS, Items.BIRCH_PLANKS), planks.getAlternatives());
+
+        CraftingRecipe ingot = read.get(1);
+        assertEquals(Items.IRON_INGOT, ingot.getOutput());
+        assertEquals(9, ingot.getIngredients().get(0).getQuantity());
+        assertEquals(List.of(Items.IRON_NUGGET), ingot.getIngredients().get(0).getAlternatives());
+    }
+
+    @Test
+    void matchesOnlyItsVersionAndFingerprint() {
+        RecipeCache cache = written(42);
+
+        assertTrue(cache.read(VERSION, null).isPresent());
+        assertTrue(cache.read(VERSION, 43L).isEmpty());
+        assertTrue(cache.read("1.21.9", 42L).isEmpty());
+        assertTrue(new RecipeCache(dir.resolve("missing.bin")).read(VERSION, null).isEmpty());
+    }
+
+    @Test
+    void ignoresATruncatedFile() throws IOException {
+        RecipeCache cache = written(42);
+        Path file = dir.resolve("recipes.bin");
+        byte[] bytes = Files.readAllBytes(file);
+
+        for (int length : new int[] {0, 6, bytes.length / 2, bytes.length - 1}) {
+            Files.write(file, Arrays.copyOf(bytes, length));
+            assertTrue(cache.read(VERSION, null).isEmpty(), "truncated to " + length + " bytes");
+        }
+    }
+
+    @Test
+    void ignoresCorruptCountsAndIndices() throws IOException {
+        RecipeCache cache = written(42);
+        Path file = dir.resolve("recipes.bin");
+        byte[] bytes = Files.readAllBytes(file);
+        // Magic, format, the version string and the fingerprint come before the item table size
+        int itemCount = 4 + 4 + 2 + VERSION.length() + 8;
+
+        byte[] negative = bytes.clone();
+        ByteBuffer.wrap(negative).putInt(itemCount, -1);
+        Files.write(file, negative);
+        assertTrue(cache.read(VERSION, null).isEmpty(), "negative item count");
+
+        byte[] badIndex = bytes.clone();
+        ByteBuffer.wrap(badIndex).putInt(bytes.length - 4, 1_000);
+        Files.write(file, badIndex);
+        assertTrue(cache.read(VERSION, null).isEmpty(), "item index out of range");
+    }
+
+    @Test
+    void overwritesAnExistingFile() {
+        written(42);
+        RecipeCache cache = new RecipeCache(dir.resolve("recipes.bin"));
+        cache.write(VERSION, 43, recipes().subList(0, 1));
+
+        assertEquals(1, cache.read(VERSION, 43L).orElseThrow().getRecipes().size());
+    }
+}
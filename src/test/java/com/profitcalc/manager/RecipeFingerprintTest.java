@@ -0,0 +1,82 @@
+package com.profitcalc.manager;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecipeFingerprintTest {
+    private final RecipeFingerprint fingerprint = new RecipeFingerprint(new RecipeIntrospector());
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+    }
+
+    // Shaped like a vanilla recipe: a result, a grid of slots and a lazily filled cache
+    private static class FakeRecipe {
+        private final String group;
+        private final ItemStack result;
+        private final List<Optional<Item>> slots;
+        private final Set<Item> accepted;
+        private Object placement;
+
+        FakeRecipe(ItemStack result, List<Optional<Item>> slots, Set<Item> accepted) {
+            this.group = "planks";
+            this.result = result;
+            this.slots = slots;
+            this.accepted = accepted;
+        }
+    }
+
+    private static FakeRecipe sticks(int count) {
+        return new FakeRecipe(new ItemStack(Items.STICK, count),
+                List.of(Optional.of(Items.OAK_PLANKS), Optional.empty(), Optional.of(Items.OAK_PLANKS)),
+                new LinkedHashSet<>(List.of(Items.OAK_PLANKS, Items.BIRCH_PLANKS)));
+    }
+
+    @Test
+    void isTheSameForEqualContents() {
+        assertEquals(fingerprint.hashEntry("minecraft:stick", sticks(4)),
+                fingerprint.hashEntry("minecraft:stick", sticks(4)));
+    }
+
+    @Test
+    void followsTheIdAndEveryFinalField() {
+        long base = fingerprint.hashEntry("minecraft:stick", sticks(4));
+
+        assertNotEquals(base, fingerprint.hashEntry("minecraft:stick_2", sticks(4)));
+        assertNotEquals(base, fingerprint.hashEntry("minecraft:stick", sticks(8)));
+        assertNotEquals(base, fingerprint.hashEntry("minecraft:stick", new FakeRecipe(new ItemStack(Items.TORCH, 4),
+                sticks(4).slots, sticks(4).accepted)));
+        assertNotEquals(base, fingerprint.hashEntry("minecraft:stick", new FakeRecipe(new ItemStack(Items.STICK, 4),
+                List.of(Optional.of(Items.OAK_PLANKS), Optional.of(Items.OAK_PLANKS), Optional.empty()),
+                sticks(4).accepted)));
+        assertNotEquals(base, fingerprint.hashEntry("minecraft:stick", new FakeRecipe(new ItemStack(Items.STICK, 4),
+                sticks(4).slots, Set.of(Items.OAK_PLANKS))));
+    }
+
+    @Test
+    void ignoresSetOrderAndLazyCaches() {
+        long base = fingerprint.hashEntry("minecraft:stick", sticks(4));
+
+        FakeRecipe reordered = new FakeRecipe(new ItemStack(Items.STICK, 4), sticks(4).slots,
+                new LinkedHashSet<>(List.of(Items.BIRCH_PLANKS, Items.OAK_PLANKS)));
+        assertEquals(base, fingerprint.hashEntry("minecraft:stick", reordered));
+
+        FakeRecipe cached = sticks(4);
+        cached.placement = new Object();
+        assertEquals(base, fingerprint.hashEntry("minecraft:stick", cached));
+    }
+}
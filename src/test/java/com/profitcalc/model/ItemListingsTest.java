@@ -0,0 +1,120 @@
+package com.profitcalc.model;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.item.Items;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemListingsTest {
+    private final SellerDictionary sellers = new SellerDictionary();
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+    }
+
+    // 10 units at 2.0, 4 at 3.0, 1 at 5.0; expiring at 100, 200 and 300
+    private ItemListings book() {
+        return new ItemListings.Builder(Items.DIAMOND, sellers, 3)
+                .add(12, 4, sellers.encode("b"), 0, 200)
+                .add(5, 1, sellers.encode("c"), 0, 300)
+                .add(20, 10, sellers.encode("a"), 0, 100)
+                .buildSorted();
+    }
+
+    @Test
+    void sortsByUnitPriceAndSumsTheBook() {
+        ItemListings listings = book();
+
+        assertEquals(3, listings.size());
+        assertEquals(2.0, listings.getMin());
+        assertEquals(5.0, listings.getMax());
+        assertEquals(3.0, listings.unitPriceAt(1));
+        assertEquals(15, listings.getTotalUnits());
+        assertEquals(37.0, listings.getTotalCost());
+        assertEquals(37.0 / 15, listings.getAverage(), 1e-9);
+    }
+
+    @Test
+    void splicesANewListingAtItsRank() {
+        ItemListings before = book();
+        ItemListings after = before.with(5, 2, sellers.encode("d"), 0, 400);
+
+        assertEquals(4, after.size());
+        assertEquals(2.5, after.unitPriceAt(1));
+        assertEquals(17, after.getTotalUnits());
+        assertEquals(42.0, after.getTotalCost());
+        assertTrue(after.contains(5, 2, sellers.encode("d")));
+        // The original is never modified
+        assertEquals(3, before.size());
+        assertFalse(before.contains(5, 2, sellers.encode("d")));
+    }
+
+    @Test
+    void dropsExpiredListingsAndKeepsTheRestInOrder() {
+        ItemListings listings = book();
+
+        assertSame(listings, listings.withoutExpired(50));
+
+        ItemListings remaining = listings.withoutExpired(100);
+        assertEquals(2, remaining.size());
+        assertEquals(3.0, remaining.getMin());
+        assertEquals(5, remaining.getTotalUnits());
+        assertEquals(17.0, remaining.getTotalCost());
+
+        assertTrue(listings.withoutExpired(300).isEmpty());
+    }
+
+    @Test
+    void costsUnitsCheapestFirstInWholeListings() {
+        ItemListings listings = book();
+
+        assertEquals(0.0, listings.costForUnits(0));
+        assertEquals(20.0, listings.costForUnits(1));
+        assertEquals(20.0, listings.costForUnits(10));
+        assertEquals(32.0, listings.costForUnits(11));
+        assertEquals(32.0, listings.costForUnits(12));
+        assertEquals(37.0, listings.costForUnits(15));
+        assertEquals(-1.0, listings.costForUnits(16), "deeper than the book");
+        assertEquals(-1.0, ItemListings.EMPTY.costForUnits(1));
+    }
+
+    @Test
+    void countsTheUnitsWholeListingsDeliver() {
+        ItemListings listings = book();
+
+        assertEquals(0, listings.unitsObtained(0));
+        assertEquals(10, listings.unitsObtained(1));
+        assertEquals(14, listings.unitsObtained(12));
+        assertEquals(15, listings.unitsObtained(15));
+        assertEquals(-1, listings.unitsObtained(16), "deeper than the book");
+    }
+
+    @Test
+    void countsUnitsAffordableWithinABudget() {
+        ItemListings listings = book();
+
+        assertEquals(0, listings.unitsAffordable(0));
+        assertEquals(0, listings.unitsAffordable(1.5));
+        assertEquals(0, listings.unitsAffordable(19.99));
+        assertEquals(10, listings.unitsAffordable(20));
+        assertEquals(10, listings.unitsAffordable(31.99));
+        assertEquals(14, listings.unitsAffordable(32));
+        assertEquals(15, listings.unitsAffordable(1000));
+        assertEquals(0, ItemListings.EMPTY.unitsAffordable(1000));
+    }
+
+    @Test
+    void countsListingsAtOrBelowAUnitPrice() {
+        ItemListings listings = book();
+
+        assertEquals(0, listings.countAtOrBelow(1.9));
+        assertEquals(1, listings.countAtOrBelow(2.0));
+        assertEquals(2, listings.countAtOrBelow(4.99));
+        assertEquals(3, listings.countAtOrBelow(5.0));
+    }
+}
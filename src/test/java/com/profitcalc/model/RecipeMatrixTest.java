@@ -0,0 +1,121 @@
+package com.profitcalc.model;
+
+import com.profitcalc.manager.RecipeManager;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.item.Item;
+import net.minecraft.item.Items;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecipeMatrixTest {
+    private static final List<Item> PLANKS = List.of(Items.OAK_PLANKS, Items.BIRCH_PLANKS, Items.SPRUCE_PLANKS);
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+    }
+
+    // A chest from eight of any planks and a stick, to have a plain slot next to the choice
+    private static CraftingRecipe chest() {
+        CraftingRecipe recipe = new CraftingRecipe(Items.CHEST, 1);
+        recipe.addIngredient(PLANKS, 8);
+        recipe.addIngredient(Items.STICK, 1);
+        return recipe;
+    }
+
+    private static RecipeMatrix matrix(CraftingRecipe recipe) {
+        return RecipeIndex.of(1, List.of(recipe)).getMatrix();
+    }
+
+    @Test
+    void buysAChoiceFromADeeperMemberWhenTheCheapestIsShallow() {
+        AuctionSnapshot.Builder builder = new AuctionSnapshot.Builder(new SellerDictionary());
+        builder.add(Items.OAK_PLANKS, 2, 4, "a", 0, Long.MAX_VALUE); // 0.5 each, but only 4
+        builder.add(Items.BIRCH_PLANKS, 16, 8, "b", 0, Long.MAX_VALUE); // 2.0 each
+        builder.add(Items.SPRUCE_PLANKS, 24, 8, "c", 0, Long.MAX_VALUE); // 3.0 each
+        builder.add(Items.STICK, 3, 1, "d", 0, Long.MAX_VALUE);
+        AuctionSnapshot market = builder.build(1, true);
+        RecipeMatrix matrix = matrix(chest());
+        IngredientPrices prices = matrix.pricesFor(market);
+
+        assertEquals(19.0, matrix.rowCost(0, prices));
+        assertEquals(Items.BIRCH_PLANKS, matrix.resolvedRecipe(0, prices).getIngredients().get(0).getItem());
+        // The bound still uses the lowest floor, which stays below the real cost
+        assertEquals(7.0, matrix.rowLowerBound(0, prices));
+    }
+
+    @Test
+    void buysAChoiceFromTheLowestFloorWhenItsWholeListingIsCheapest() {
+        AuctionSnapshot.Builder builder = new AuctionSnapshot.Builder(new SellerDictionary());
+        builder.add(Items.OAK_PLANKS, 8, 16, "a", 0, Long.MAX_VALUE);
+        builder.add(Items.BIRCH_PLANKS, 16, 8, "b", 0, Long.MAX_VALUE);
+        builder.add(Items.STICK, 3, 1, "d", 0, Long.MAX_VALUE);
+        AuctionSnapshot market = builder.build(1, true);
+        RecipeMatrix matrix = matrix(chest());
+        IngredientPrices prices = matrix.pricesFor(market);
+
+        // The whole 16-plank listing is paid for, even though only 8 are used
+        assertEquals(11.0, matrix.rowCost(0, prices));
+        assertEquals(Items.OAK_PLANKS, matrix.resolvedRecipe(0, prices).getIngredients().get(0).getItem());
+    }
+
+    @Test
+    void buysAChoiceFromASmallerListingWhenTheFloorListingIsLarger() {
+        AuctionSnapshot.Builder builder = new AuctionSnapshot.Builder(new SellerDictionary());
+        builder.add(Items.OAK_PLANKS, 32, 64, "a", 0, Long.MAX_VALUE); // 0.5 each, but 64 at once
+        builder.add(Items.BIRCH_PLANKS, 6, 8, "b", 0, Long.MAX_VALUE); // 0.75 each
+        builder.add(Items.STICK, 3, 1, "d", 0, Long.MAX_VALUE);
+        AuctionSnapshot market = builder.build(1, true);
+        RecipeMatrix matrix = matrix(chest());
+        IngredientPrices prices = matrix.pricesFor(market);
+
+        assertEquals(9.0, matrix.rowCost(0, prices));
+        assertEquals(Items.BIRCH_PLANKS, matrix.resolvedRecipe(0, prices).getIngredients().get(0).getItem());
+    }
+
+    @Test
+    void failsWhenNoMemberHasEnoughUnits() {
+        AuctionSnapshot.Builder builder = new AuctionSnapshot.Builder(new SellerDictionary());
+        builder.add(Items.OAK_PLANKS, 2, 4, "a", 0, Long.MAX_VALUE);
+        builder.add(Items.BIRCH_PLANKS, 14, 7, "b", 0, Long.MAX_VALUE);
+        builder.add(Items.STICK, 3, 1, "d", 0, Long.MAX_VALUE);
+        AuctionSnapshot market = builder.build(1, true);
+        RecipeMatrix matrix = matrix(chest());
+
+        assertEquals(-1.0, matrix.rowCost(0, matrix.pricesFor(market)));
+    }
+
+    @Test
+    void agreesWithTheOrderBookWalkOnRandomMarkets() {
+        Random random = new Random(24);
+        CraftingRecipe recipe = chest();
+        RecipeMatrix matrix = matrix(recipe);
+
+        for (int round = 0; round < 500; round++) {
+            AuctionSnapshot.Builder builder = new AuctionSnapshot.Builder(new SellerDictionary());
+            for (Item item : List.of(Items.OAK_PLANKS, Items.BIRCH_PLANKS, Items.SPRUCE_PLANKS, Items.STICK)) {
+                for (int listing = random.nextInt(4); listing > 0; listing--) {
+                    int count = 1 + random.nextInt(6);
+                    builder.add(item, count * (1 + random.nextInt(10)), count, "s" + listing, 0, Long.MAX_VALUE);
+                }
+            }
+            AuctionSnapshot market = builder.build(round + 1, true);
+            double expected = RecipeManager.getInstance().calculateRecipeCost(recipe, market);
+            double actual = matrix.rowCost(0, matrix.pricesFor(market));
+
+            assertEquals(expected, actual, 1e-9, "round " + round);
+            if (actual >= 0) {
+                CraftingRecipe resolved = matrix.resolvedRecipe(0, matrix.pricesFor(market));
+                assertEquals(expected, RecipeManager.getInstance().calculateRecipeCost(resolved, market), 1e-9,
+                        "resolved recipe, round " + round);
+            }
+        }
+    }
+}